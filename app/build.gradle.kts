@@ -1,8 +1,13 @@
+import javax.inject.Inject
+
 plugins {
     java
     application
 }
 
+// The coordinates the Gradle plugin resolves the analyzer by
+group = "org.gradle.research"
+
 repositories {
     mavenCentral()
 }
@@ -11,6 +16,11 @@ dependencies {
     implementation("com.google.guava:guava:32.1.3-jre")
     implementation("com.ibm.wala:com.ibm.wala.core:1.6.4")
     implementation("info.picocli:picocli:4.6.2")
+
+    testImplementation("org.junit.jupiter:junit-jupiter:5.10.2")
+    // Parses the JSON Lines and SARIF reports in the tests
+    testImplementation("com.fasterxml.jackson.core:jackson-databind:2.17.1")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 java {
@@ -23,6 +33,85 @@ application {
     mainClass = "org.gradle.research.PublicApiAnalyzer"
 }
 
+// A small API in the shape of the Gradle API, analyzed by the training run that creates the class data sharing archive
+val cdsTraining by sourceSets.creating
+
+val cdsTrainingJar by tasks.registering(Jar::class) {
+    archiveClassifier = "cds-training"
+    from(cdsTraining.output)
+}
+
+tasks.test {
+    useJUnitPlatform()
+    // The tests analyze the sample API of the training run
+    val sampleJar = cdsTrainingJar.flatMap { it.archiveFile }
+    inputs.file(sampleJar)
+    jvmArgumentProviders.add(CommandLineArgumentProvider { listOf("-Dsample.jar=${sampleJar.get().asFile.absolutePath}") })
+}
+
+interface InjectedServices {
+    @get:Inject
+    val exec: ExecOperations
+
+    @get:Inject
+    val files: FileSystemOperations
+}
+
+val cdsArchive by tasks.registering {
+    description = "Creates the class data sharing archive of the distribution with a training run on the sample API."
+    val services = objects.newInstance<InjectedServices>()
+    // The class path of the start scripts, in the same order
+    val libraries = files(tasks.jar, configurations.runtimeClasspath)
+    val trainingJar = cdsTrainingJar.flatMap { it.archiveFile }
+    val javaLauncher = javaToolchains.launcherFor(java.toolchain)
+    val mainClass = application.mainClass
+    val archive = layout.buildDirectory.file("cds/app.jsa")
+    inputs.files(libraries).withPropertyName("libraries").withNormalizer(ClasspathNormalizer::class)
+    inputs.file(trainingJar).withPropertyName("trainingJar")
+    // The JVM only uses an archive created by the same JDK build
+    inputs.property("javaRuntime", javaLauncher.map { "${it.metadata.vendor} ${it.metadata.javaRuntimeVersion}" })
+    outputs.file(archive)
+    doLast {
+        // The JVM accepts the archive for JARs moved together to another directory, so train on the JARs laid out like lib/ of the distribution
+        val lib = temporaryDir.resolve("lib")
+        services.files.sync {
+            from(libraries)
+            into(lib)
+        }
+        val archiveFile = archive.get().asFile
+        archiveFile.delete()
+        services.exec.exec {
+            executable = javaLauncher.get().executablePath.asFile.absolutePath
+            args(
+                "-XX:ArchiveClassesAtExit=${archiveFile.absolutePath}",
+                "-cp", libraries.joinToString(File.pathSeparator) { lib.resolve(it.name).absolutePath },
+                mainClass.get(),
+                "--classpath", trainingJar.get().asFile.absolutePath,
+                "--output", temporaryDir.resolve("training-report.md").absolutePath
+            )
+        }
+        check(archiveFile.isFile) { "The training run did not create the class data sharing archive" }
+    }
+}
+
+distributions.main {
+    contents {
+        into("lib") {
+            from(cdsArchive)
+        }
+    }
+}
+
+tasks.startScripts {
+    // Only the start scripts use the archive, so it is not set via applicationDefaultJvmArgs, which would also apply to the run task.
+    // The JVM runs without the archive when it is missing or was created for a different JDK or classpath, and never writes it.
+    defaultJvmOpts = listOf("-XX:SharedArchiveFile=__APP_HOME__/lib/app.jsa")
+    doLast {
+        unixScript.writeText(unixScript.readText().replace("__APP_HOME__", "'\"\$APP_HOME\"'"))
+        windowsScript.writeText(windowsScript.readText().replace("__APP_HOME__", "%APP_HOME%"))
+    }
+}
+
 tasks.register("gradleInfo") {
     doLast {
         println("GRADLE_VERSION: ${gradle.gradleVersion}")
@@ -0,0 +1,7 @@
+package org.gradle.api.file;
+
+public interface ConfigurableFileCollection extends FileCollection {
+    ConfigurableFileCollection from(Object... paths);
+
+    void setFrom(Iterable<?> paths);
+}
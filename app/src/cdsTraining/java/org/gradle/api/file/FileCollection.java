@@ -0,0 +1,10 @@
+package org.gradle.api.file;
+
+import java.io.File;
+import java.util.Set;
+
+public interface FileCollection extends Iterable<File> {
+    Set<File> getFiles();
+
+    boolean isEmpty();
+}
@@ -0,0 +1,7 @@
+package org.gradle.api.provider;
+
+public interface Property<T> extends Provider<T> {
+    void set(T value);
+
+    void set(Provider<? extends T> provider);
+}
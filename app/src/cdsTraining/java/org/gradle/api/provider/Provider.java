@@ -0,0 +1,7 @@
+package org.gradle.api.provider;
+
+public interface Provider<T> {
+    T get();
+
+    boolean isPresent();
+}
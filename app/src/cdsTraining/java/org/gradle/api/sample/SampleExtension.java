@@ -0,0 +1,38 @@
+package org.gradle.api.sample;
+
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.provider.Property;
+
+import java.io.File;
+
+/**
+ * Part of the sample API analyzed by the training run that creates the class data sharing archive of the distribution.
+ * Its properties have the shapes that the report rules look for, so that the training run loads the classes of every rule.
+ */
+public interface SampleExtension {
+    String getName();
+
+    void setName(String name);
+
+    Object getVersion();
+
+    void setVersion(Object version);
+
+    void setVersion(String version);
+
+    Property<File> getDestination();
+
+    void setDestination(File destination);
+
+    void setDescription(String description);
+
+    boolean isEnabled();
+
+    void setEnabled(Boolean enabled);
+
+    ConfigurableFileCollection getSources();
+
+    static SampleExtension defaults() {
+        return null;
+    }
+}
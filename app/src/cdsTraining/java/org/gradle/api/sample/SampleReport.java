@@ -0,0 +1,6 @@
+package org.gradle.api.sample;
+
+public class SampleReport implements SampleReportSpec {
+    public void setFormat(String format) {
+    }
+}
@@ -0,0 +1,9 @@
+package org.gradle.api.sample;
+
+import org.gradle.api.provider.Property;
+
+public interface SampleReportSpec {
+    default Property<String> getFormat() {
+        return null;
+    }
+}
@@ -0,0 +1,22 @@
+package org.gradle.api.sample;
+
+import org.gradle.api.provider.Property;
+
+import java.util.List;
+
+public abstract class SampleTask implements SampleExtension {
+    public abstract Property<Integer> getTimeout();
+
+    public abstract List<String> getArguments();
+
+    public void setArguments(List<String> arguments) {
+    }
+
+    @Deprecated
+    public int getRetries() {
+        return 0;
+    }
+
+    public void execute() {
+    }
+}
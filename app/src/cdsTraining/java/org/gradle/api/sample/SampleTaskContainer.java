@@ -0,0 +1,9 @@
+package org.gradle.api.sample;
+
+public interface SampleTaskContainer extends Iterable<SampleTask> {
+    SampleTask getByName(String name);
+
+    SampleTask[] getTasks();
+
+    void setTasks(SampleTask[] tasks);
+}
@@ -0,0 +1,17 @@
+package org.gradle.api.sample.internal;
+
+import org.gradle.api.sample.SampleTask;
+
+public abstract class DefaultSampleTask extends SampleTask {
+    private String name;
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,31 @@
+package org.gradle.research;
+
+import javax.annotation.Nullable;
+
+/**
+ * Resources shared by the analyses running in the same JVM.
+ *
+ * @param jdkClasses the JDK class files to share between class hierarchies, or {@code null} to read them for each hierarchy
+ * @param modules the provider of the modules for classpath entries
+ * @param classFiles the class files kept between the analyses of watch mode, or {@code null} outside of watch mode
+ */
+record AnalysisEnvironment(@Nullable SharedJdkClasses jdkClasses, ClasspathModules modules, @Nullable ClassFileCache classFiles) {
+    public AnalysisEnvironment(@Nullable SharedJdkClasses jdkClasses, ClasspathModules modules) {
+        this(jdkClasses, modules, null);
+    }
+
+    /**
+     * An environment for a single analysis that shares nothing.
+     */
+    public static AnalysisEnvironment standalone() {
+        return new AnalysisEnvironment(null, ClasspathModules.DEFAULT);
+    }
+
+    /**
+     * An environment for the repeated analyses of watch mode, which read the classpath with the class file backend
+     * and only read the class files again that were invalidated in the cache.
+     */
+    public static AnalysisEnvironment watching(ClassFileCache classFiles) {
+        return new AnalysisEnvironment(null, ClasspathModules.DEFAULT, classFiles);
+    }
+}
@@ -0,0 +1,152 @@
+package org.gradle.research;
+
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Spec;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.List;
+
+/**
+ * The settings of an analysis shared by all commands.
+ */
+public class AnalysisOptions {
+    @Spec(Spec.Target.MIXEE)
+    private CommandSpec spec;
+
+    @Option(
+        names = "--ignore-package",
+        description = "Ignore packages matching the given regular expression (e.g. 'org.gradle.caching'); subpackages are also ignored")
+    private List<String> ignoredPackages = List.of();
+
+    @Option(
+        names = "--ignore-type",
+        description = "Ignore types with the given FQCN (e.g. 'org.gradle.caching.configuration.BuildCache')")
+    private List<String> ignoredTypes = List.of();
+
+    @Option(
+        names = "--ignore-deprecated",
+        description = "Ignore deprecated types and members")
+    private boolean ignoreDeprecated = false;
+
+    @Option(
+        names = "--cache-dir",
+        description = "Directory to cache extracted API models in; repeated runs on the same classpath and settings reuse the cached model")
+    private File cacheDirectory;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Option(
+        names = "--threads",
+        description = "Number of threads to extract API types with; defaults to the number of available processors")
+    private void setThreads(int threads) {
+        if (threads < 1) {
+            throw new ParameterException(spec.commandLine(), "--threads must be at least 1, but was " + threads);
+        }
+        this.threads = threads;
+    }
+
+    @Option(
+        names = "--load-all-classes",
+        description = "Load every class on the classpath into the class hierarchy instead of only the public API and the types it depends on")
+    private boolean loadAllClasses = false;
+
+    @Option(
+        names = "--lazy-type",
+        description = "Treat the subtypes of the given type (e.g. 'org.gradle.api.file.FileCollection') as lazy, in addition to Provider and ConfigurableFileCollection")
+    private List<String> lazyTypes = List.of();
+
+    @Option(
+        names = "--backend",
+        description = "How to read the classpath: 'wala' builds a WALA class hierarchy, 'fast' only reads class headers and method signatures; defaults to ${DEFAULT-VALUE}")
+    private ExtractionBackend backend = ExtractionBackend.WALA;
+
+    @Option(
+        names = "--inherited",
+        description = "Pair property methods with the ones inherited from API supertypes, e.g. a getter on an interface with a setter on the implementing class")
+    private boolean inherited = false;
+
+    @Option(
+        names = "--pipeline",
+        description = "Analyze the classpath one package at a time and spill report sections to temporary files, so that memory use depends on the largest package instead of the whole API; always reads the classpath with the 'fast' backend and bypasses the cache")
+    private boolean pipeline = false;
+
+    public AnalysisOptions() {
+    }
+
+    public AnalysisOptions(
+        List<String> ignoredPackages,
+        List<String> ignoredTypes,
+        boolean ignoreDeprecated,
+        @Nullable File cacheDirectory,
+        int threads,
+        boolean loadAllClasses,
+        List<String> lazyTypes,
+        ExtractionBackend backend,
+        boolean inherited,
+        boolean pipeline) {
+        this.ignoredPackages = ignoredPackages;
+        this.ignoredTypes = ignoredTypes;
+        this.ignoreDeprecated = ignoreDeprecated;
+        this.cacheDirectory = cacheDirectory;
+        this.threads = threads;
+        this.loadAllClasses = loadAllClasses;
+        this.lazyTypes = lazyTypes;
+        this.backend = backend;
+        this.inherited = inherited;
+        this.pipeline = pipeline;
+    }
+
+    public List<String> getIgnoredPackages() {
+        return ignoredPackages;
+    }
+
+    public List<String> getIgnoredTypes() {
+        return ignoredTypes;
+    }
+
+    public boolean isIgnoreDeprecated() {
+        return ignoreDeprecated;
+    }
+
+    @Nullable
+    public File getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public boolean isLoadAllClasses() {
+        return loadAllClasses;
+    }
+
+    public List<String> getLazyTypes() {
+        return lazyTypes;
+    }
+
+    public ExtractionBackend getBackend() {
+        return backend;
+    }
+
+    public boolean isInherited() {
+        return inherited;
+    }
+
+    public boolean isPipeline() {
+        return pipeline;
+    }
+
+    void resolvePaths(File workingDirectory) {
+        if (cacheDirectory != null) {
+            cacheDirectory = PublicApiAnalyzer.resolve(workingDirectory, cacheDirectory);
+        }
+    }
+
+    public ApiTypeFilter createApiTypeFilter() {
+        return new ApiTypeFilter(ignoredPackages, ignoredTypes);
+    }
+}
@@ -0,0 +1,232 @@
+package org.gradle.research;
+
+import picocli.CommandLine;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Keeps a warm JVM around that generates reports for clients connecting over a Unix domain socket.
+ * <p>
+ * A client sends its working directory and command line arguments. The daemon answers with a stream of frames:
+ * chunks of the report ({@value #REPORT_CHUNK}), an error message ({@value #ERROR}) and finally the exit code
+ * ({@value #EXIT}). Requests are handled one at a time, reusing the JDK class files and the recently used JARs
+ * of earlier requests. A failing request is answered with an error and does not stop the daemon, unless the JVM
+ * itself failed, e.g. ran out of memory, in which case the daemon shuts down after answering.
+ */
+class AnalyzerDaemon {
+    private static final byte REPORT_CHUNK = 'R';
+    private static final byte ERROR = 'E';
+    private static final byte EXIT = 'X';
+
+    private final Path socket;
+    private final AnalysisEnvironment environment;
+    private final ResidentModules modules;
+
+    public AnalyzerDaemon(Path socket, int residentJars) {
+        this.socket = socket;
+        this.modules = new ResidentModules(residentJars);
+        this.environment = new AnalysisEnvironment(new SharedJdkClasses(), modules);
+    }
+
+    public int serve() throws IOException {
+        if (isListening(socket)) {
+            System.err.println("Another daemon is already listening on " + socket.toAbsolutePath() + ", stop it or pass a different --socket");
+            return 1;
+        }
+        // Nothing accepts connections on the socket, so it was left behind by a daemon that did not shut down cleanly
+        Files.deleteIfExists(socket);
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            try {
+                System.out.println("Daemon listening on " + socket.toAbsolutePath());
+                //noinspection InfiniteLoopStatement
+                while (true) {
+                    try (SocketChannel client = server.accept()) {
+                        handle(client);
+                    } catch (EOFException e) {
+                        // A daemon checking whether the socket is in use connects without sending a request
+                    } catch (Exception e) {
+                        System.err.println("Failed to handle request: " + e);
+                    }
+                    try {
+                        modules.trim();
+                    } catch (IOException e) {
+                        System.err.println("Failed to close unused JARs: " + e);
+                    }
+                }
+            } catch (VirtualMachineError e) {
+                System.err.println("Daemon stopped after a request failed with " + e);
+                return 1;
+            } finally {
+                Files.deleteIfExists(socket);
+            }
+        }
+    }
+
+    private static boolean isListening(Path socket) throws IOException {
+        if (!Files.exists(socket)) {
+            return false;
+        }
+        try (SocketChannel ignored = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            return true;
+        } catch (ConnectException e) {
+            return false;
+        }
+    }
+
+    private void handle(SocketChannel client) throws IOException {
+        DataInputStream input = new DataInputStream(Channels.newInputStream(client));
+        File workingDirectory = new File(input.readUTF());
+        String[] args = new String[input.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = input.readUTF();
+        }
+
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(client)));
+        int exitCode;
+        Throwable failure = null;
+        try {
+            PublicApiAnalyzer request = new PublicApiAnalyzer();
+            if (new CommandLine(request).setCaseInsensitiveEnumValuesAllowed(true).parseArgs(args).hasSubcommand()) {
+                throw new IllegalArgumentException("Subcommands cannot be run by the daemon");
+            }
+            request.resolvePaths(workingDirectory);
+            try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new ReportChunkStream(output), StandardCharsets.UTF_8))) {
+                request.generateReport(writer, environment);
+            }
+            exitCode = 0;
+        } catch (Throwable e) {
+            failure = e;
+            output.writeByte(ERROR);
+            output.writeUTF(String.valueOf(e));
+            exitCode = 1;
+        }
+        output.writeByte(EXIT);
+        output.writeInt(exitCode);
+        output.flush();
+        if (failure instanceof VirtualMachineError error) {
+            // The caches of the daemon may be left inconsistent, so stop after the client got the error
+            throw error;
+        }
+    }
+
+    /**
+     * Sends the arguments to a running daemon and writes the report it streams back to the given file.
+     * Returns 1 without writing the report when no daemon is listening on the socket.
+     */
+    public static int forward(Path socket, List<String> args, File reportFile) throws IOException {
+        SocketChannel connection;
+        try {
+            connection = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+        } catch (SocketException e) {
+            System.err.println("No daemon is listening on " + socket.toAbsolutePath() + " (" + e.getMessage() + "), start one with --daemon or run without --use-daemon");
+            return 1;
+        }
+        try (SocketChannel channel = connection) {
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            request.writeUTF(new File("").getAbsolutePath());
+            request.writeInt(args.size());
+            for (String arg : args) {
+                request.writeUTF(arg);
+            }
+            request.flush();
+
+            //noinspection ResultOfMethodCallIgnored
+            reportFile.getAbsoluteFile().getParentFile().mkdirs();
+            DataInputStream response = new DataInputStream(Channels.newInputStream(channel));
+            try (OutputStream report = new BufferedOutputStream(Files.newOutputStream(reportFile.toPath()))) {
+                while (true) {
+                    byte frame = response.readByte();
+                    switch (frame) {
+                        case REPORT_CHUNK -> {
+                            byte[] chunk = new byte[response.readInt()];
+                            response.readFully(chunk);
+                            report.write(chunk);
+                        }
+                        case ERROR -> System.err.println("Daemon failed to generate report: " + response.readUTF());
+                        case EXIT -> {
+                            return response.readInt();
+                        }
+                        default -> throw new IOException("Unexpected frame from daemon: " + frame);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Wraps everything written into report chunk frames. Closing the stream does not close the connection.
+     */
+    private static class ReportChunkStream extends OutputStream {
+        private static final int CHUNK_SIZE = 64 * 1024;
+
+        private final DataOutputStream output;
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int count;
+
+        public ReportChunkStream(DataOutputStream output) {
+            this.output = output;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flushChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (count == buffer.length) {
+                    flushChunk();
+                }
+                int copied = Math.min(length, buffer.length - count);
+                System.arraycopy(bytes, offset, buffer, count, copied);
+                count += copied;
+                offset += copied;
+                length -= copied;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushChunk();
+            output.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushChunk();
+        }
+
+        private void flushChunk() throws IOException {
+            if (count > 0) {
+                output.writeByte(REPORT_CHUNK);
+                output.writeInt(count);
+                output.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,564 @@
+package org.gradle.research;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A queryable on-disk index of an {@link ApiModel}, read through a memory mapping.
+ * <p>
+ * The index stores the types, methods and properties of the model as columns of integers, with the type names,
+ * method names and property names in a sorted string table, so that IDs can be compared instead of strings and
+ * a name is found by binary search. Posting lists map packages to types, and return and parameter types to methods.
+ * Columns are only read when a query looks at them, so answering a query does not load the whole index,
+ * and nothing but this class is needed to read it.
+ * <p>
+ * Type names are in JVM internal form like in the model, and IDs are the ones of the model.
+ */
+final class ApiIndex {
+    private static final int MAGIC = 0x41504958;
+    private static final int FORMAT_VERSION = 1;
+
+    static final int TYPE_INTERFACE = 1;
+
+    static final int METHOD_STATIC = 1;
+    static final int METHOD_ABSTRACT = 2;
+    static final int METHOD_LAZY_RETURN = 4;
+    static final int METHOD_GETTER = 8;
+    static final int METHOD_SETTER = 16;
+
+    static final int NO_GETTER = -1;
+
+    private final int[] stringOffsets;
+    private final ByteBuffer stringData;
+
+    private final IntBuffer typeNames;
+    private final IntBuffer typePackages;
+    private final IntBuffer typeFlags;
+    private final IntBuffer typeMethodOffsets;
+    private final IntBuffer typeSupertypeOffsets;
+    private final IntBuffer typePropertyOffsets;
+    private final IntBuffer supertypes;
+
+    private final IntBuffer methodTypes;
+    private final IntBuffer methodNames;
+    private final IntBuffer methodReturnTypes;
+    private final IntBuffer methodFlags;
+    private final IntBuffer methodParameterOffsets;
+    private final IntBuffer parameterTypes;
+
+    private final IntBuffer propertyNames;
+    private final IntBuffer propertyGetters;
+    private final IntBuffer propertySetterOffsets;
+    private final IntBuffer setters;
+
+    private final Postings typesByPackage;
+    private final Postings methodsByReturnType;
+    private final Postings methodsByParameterType;
+
+    private ApiIndex(MappedByteBuffer mapping) throws IOException {
+        Sections sections = new Sections(mapping);
+        if (sections.nextInt() != MAGIC || sections.nextInt() != FORMAT_VERSION) {
+            throw new IOException("Not an API index, or written by a different version");
+        }
+        int stringCount = sections.nextInt();
+        int stringDataLength = sections.nextInt();
+        int typeCount = sections.nextInt();
+        int supertypeCount = sections.nextInt();
+        int methodCount = sections.nextInt();
+        int parameterCount = sections.nextInt();
+        int propertyCount = sections.nextInt();
+        int setterCount = sections.nextInt();
+
+        // The string offsets are needed for every lookup, so they are copied to the heap
+        this.stringOffsets = new int[stringCount + 1];
+        sections.nextInts(stringCount + 1).get(stringOffsets);
+        this.stringData = sections.nextBytes(stringDataLength);
+
+        this.typeNames = sections.nextInts(typeCount);
+        this.typePackages = sections.nextInts(typeCount);
+        this.typeFlags = sections.nextInts(typeCount);
+        this.typeMethodOffsets = sections.nextInts(typeCount + 1);
+        this.typeSupertypeOffsets = sections.nextInts(typeCount + 1);
+        this.typePropertyOffsets = sections.nextInts(typeCount + 1);
+        this.supertypes = sections.nextInts(supertypeCount);
+
+        this.methodTypes = sections.nextInts(methodCount);
+        this.methodNames = sections.nextInts(methodCount);
+        this.methodReturnTypes = sections.nextInts(methodCount);
+        this.methodFlags = sections.nextInts(methodCount);
+        this.methodParameterOffsets = sections.nextInts(methodCount + 1);
+        this.parameterTypes = sections.nextInts(parameterCount);
+
+        this.propertyNames = sections.nextInts(propertyCount);
+        this.propertyGetters = sections.nextInts(propertyCount);
+        this.propertySetterOffsets = sections.nextInts(propertyCount + 1);
+        this.setters = sections.nextInts(setterCount);
+
+        this.typesByPackage = sections.nextPostings();
+        this.methodsByReturnType = sections.nextPostings();
+        this.methodsByParameterType = sections.nextPostings();
+    }
+
+    public static ApiIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("API index is too large to map: " + file);
+            }
+            // The mapping stays valid after the channel is closed, and is released when the index is no longer reachable
+            return new ApiIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IOException("Truncated API index: " + file, e);
+        }
+    }
+
+    public int getStringCount() {
+        return stringOffsets.length - 1;
+    }
+
+    public String getString(int stringId) {
+        int start = stringOffsets[stringId];
+        byte[] bytes = new byte[stringOffsets[stringId + 1] - start];
+        stringData.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the ID of the string, or a negative value if the index does not contain it.
+     */
+    public int findString(String value) {
+        int low = 0;
+        int high = getStringCount() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = getString(middle).compareTo(value);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    public int getTypeCount() {
+        return typeNames.limit();
+    }
+
+    public int getTypeName(int typeId) {
+        return typeNames.get(typeId);
+    }
+
+    /**
+     * Returns the string ID of the package of the type, e.g. {@code org/gradle/api}.
+     */
+    public int getTypePackage(int typeId) {
+        return typePackages.get(typeId);
+    }
+
+    public boolean isInterface(int typeId) {
+        return (typeFlags.get(typeId) & TYPE_INTERFACE) != 0;
+    }
+
+    public int getFirstMethodId(int typeId) {
+        return typeMethodOffsets.get(typeId);
+    }
+
+    public int getEndMethodId(int typeId) {
+        return typeMethodOffsets.get(typeId + 1);
+    }
+
+    /**
+     * Returns whether one of the direct supertypes of the type matches, by string ID.
+     */
+    public boolean anySupertype(int typeId, IntPredicate predicate) {
+        for (int i = typeSupertypeOffsets.get(typeId); i < typeSupertypeOffsets.get(typeId + 1); i++) {
+            if (predicate.test(supertypes.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getFirstPropertyId(int typeId) {
+        return typePropertyOffsets.get(typeId);
+    }
+
+    public int getEndPropertyId(int typeId) {
+        return typePropertyOffsets.get(typeId + 1);
+    }
+
+    public int getMethodCount() {
+        return methodTypes.limit();
+    }
+
+    public int getMethodType(int methodId) {
+        return methodTypes.get(methodId);
+    }
+
+    public int getMethodName(int methodId) {
+        return methodNames.get(methodId);
+    }
+
+    public int getReturnType(int methodId) {
+        return methodReturnTypes.get(methodId);
+    }
+
+    public boolean hasMethodFlag(int methodId, int flag) {
+        return (methodFlags.get(methodId) & flag) != 0;
+    }
+
+    public int getNumberOfParameters(int methodId) {
+        return methodParameterOffsets.get(methodId + 1) - methodParameterOffsets.get(methodId);
+    }
+
+    public int getParameterType(int methodId, int index) {
+        return parameterTypes.get(methodParameterOffsets.get(methodId) + index);
+    }
+
+    public int getPropertyCount() {
+        return propertyNames.limit();
+    }
+
+    public int getPropertyName(int propertyId) {
+        return propertyNames.get(propertyId);
+    }
+
+    /**
+     * Returns the method ID of the getter of the property, or {@link #NO_GETTER}.
+     */
+    public int getGetterId(int propertyId) {
+        return propertyGetters.get(propertyId);
+    }
+
+    public int[] getSetterIds(int propertyId) {
+        int start = propertySetterOffsets.get(propertyId);
+        int[] setterIds = new int[propertySetterOffsets.get(propertyId + 1) - start];
+        setters.get(start, setterIds);
+        return setterIds;
+    }
+
+    /**
+     * The types of each package, keyed by the string ID of the package.
+     */
+    public Postings getTypesByPackage() {
+        return typesByPackage;
+    }
+
+    /**
+     * The methods returning each type, keyed by the string ID of the type.
+     */
+    public Postings getMethodsByReturnType() {
+        return methodsByReturnType;
+    }
+
+    /**
+     * The methods with a parameter of each type, keyed by the string ID of the type.
+     */
+    public Postings getMethodsByParameterType() {
+        return methodsByParameterType;
+    }
+
+    /**
+     * Writes the index of the model to the file, replacing it atomically.
+     */
+    public static void write(ApiModel model, Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream output = Files.newOutputStream(tempFile)) {
+                write(model, output);
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    static void write(ApiModel model, OutputStream stream) throws IOException {
+        // Sorting the strings makes them searchable, and the postings keyed by them sorted by ID
+        TreeSet<String> sortedStrings = new TreeSet<>();
+        for (ApiType type : model.getTypes()) {
+            sortedStrings.add(type.name());
+            sortedStrings.add(type.packageName());
+            sortedStrings.addAll(type.supertypes());
+            for (ApiMethod method : type.methods()) {
+                sortedStrings.add(method.name());
+                sortedStrings.add(method.returnType());
+                sortedStrings.addAll(method.parameterTypes());
+            }
+        }
+        for (int propertyId = 0; propertyId < model.getPropertyCount(); propertyId++) {
+            sortedStrings.add(model.getPropertyName(propertyId));
+        }
+        Map<String, Integer> stringIds = new HashMap<>(sortedStrings.size());
+        List<byte[]> encodedStrings = new ArrayList<>(sortedStrings.size());
+        int stringDataLength = 0;
+        for (String value : sortedStrings) {
+            stringIds.put(value, stringIds.size());
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            encodedStrings.add(encoded);
+            stringDataLength += encoded.length;
+        }
+
+        int[] methodFlags = new int[model.getMethodCount()];
+        for (int methodId = 0; methodId < model.getMethodCount(); methodId++) {
+            ApiMethod method = model.getMethods().get(methodId);
+            methodFlags[methodId] = (method.isStatic() ? METHOD_STATIC : 0)
+                | (method.isAbstract() ? METHOD_ABSTRACT : 0)
+                | (model.isLazyType(method.returnType()) ? METHOD_LAZY_RETURN : 0);
+        }
+        for (int propertyId = 0; propertyId < model.getPropertyCount(); propertyId++) {
+            int getterId = model.getGetterId(propertyId);
+            if (getterId >= 0) {
+                methodFlags[getterId] |= METHOD_GETTER;
+            }
+            model.getSetterIds(propertyId).forEach(setterId -> methodFlags[setterId] |= METHOD_SETTER);
+        }
+
+        int supertypeCount = model.getTypes().stream().mapToInt(type -> type.supertypes().size()).sum();
+        int parameterCount = model.getMethods().stream().mapToInt(ApiMethod::getNumberOfParameters).sum();
+        int setterCount = 0;
+        for (int propertyId = 0; propertyId < model.getPropertyCount(); propertyId++) {
+            setterCount += model.getSetterIds(propertyId).length();
+        }
+
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(sortedStrings.size());
+        output.writeInt(stringDataLength);
+        output.writeInt(model.getTypeCount());
+        output.writeInt(supertypeCount);
+        output.writeInt(model.getMethodCount());
+        output.writeInt(parameterCount);
+        output.writeInt(model.getPropertyCount());
+        output.writeInt(setterCount);
+
+        int stringOffset = 0;
+        for (byte[] encoded : encodedStrings) {
+            output.writeInt(stringOffset);
+            stringOffset += encoded.length;
+        }
+        output.writeInt(stringOffset);
+        for (byte[] encoded : encodedStrings) {
+            output.write(encoded);
+        }
+        // Keep the integer columns aligned
+        output.write(new byte[padding(stringDataLength)]);
+
+        List<ApiType> types = model.getTypes();
+        writeColumn(output, types.size(), typeId -> stringIds.get(types.get(typeId).name()));
+        writeColumn(output, types.size(), typeId -> stringIds.get(types.get(typeId).packageName()));
+        writeColumn(output, types.size(), typeId -> types.get(typeId).isInterface() ? TYPE_INTERFACE : 0);
+        writeColumn(output, types.size() + 1, typeId -> typeId == types.size() ? model.getMethodCount() : model.getFirstMethodId(typeId));
+        int supertypeOffset = 0;
+        for (ApiType type : types) {
+            output.writeInt(supertypeOffset);
+            supertypeOffset += type.supertypes().size();
+        }
+        output.writeInt(supertypeOffset);
+        writeColumn(output, types.size() + 1, typeId -> typeId == types.size() ? model.getPropertyCount() : model.getFirstPropertyId(typeId));
+        for (ApiType type : types) {
+            for (String supertype : type.supertypes()) {
+                output.writeInt(stringIds.get(supertype));
+            }
+        }
+
+        List<ApiMethod> methods = model.getMethods();
+        int[] methodTypes = new int[methods.size()];
+        for (int typeId = 0; typeId < types.size(); typeId++) {
+            Arrays.fill(methodTypes, model.getFirstMethodId(typeId), model.getEndMethodId(typeId), typeId);
+        }
+        writeColumn(output, methods.size(), methodId -> methodTypes[methodId]);
+        writeColumn(output, methods.size(), methodId -> stringIds.get(methods.get(methodId).name()));
+        writeColumn(output, methods.size(), methodId -> stringIds.get(methods.get(methodId).returnType()));
+        writeColumn(output, methods.size(), methodId -> methodFlags[methodId]);
+        int parameterOffset = 0;
+        for (ApiMethod method : methods) {
+            output.writeInt(parameterOffset);
+            parameterOffset += method.getNumberOfParameters();
+        }
+        output.writeInt(parameterOffset);
+        for (ApiMethod method : methods) {
+            for (String parameterType : method.parameterTypes()) {
+                output.writeInt(stringIds.get(parameterType));
+            }
+        }
+
+        writeColumn(output, model.getPropertyCount(), propertyId -> stringIds.get(model.getPropertyName(propertyId)));
+        writeColumn(output, model.getPropertyCount(), model::getGetterId);
+        int setterOffset = 0;
+        for (int propertyId = 0; propertyId < model.getPropertyCount(); propertyId++) {
+            output.writeInt(setterOffset);
+            setterOffset += model.getSetterIds(propertyId).length();
+        }
+        output.writeInt(setterOffset);
+        for (int propertyId = 0; propertyId < model.getPropertyCount(); propertyId++) {
+            for (int setterId : model.getSetterIds(propertyId).toArray()) {
+                output.writeInt(setterId);
+            }
+        }
+
+        // IDs are added in ascending order, so each posting list is sorted
+        SortedMap<Integer, List<Integer>> typesByPackage = new TreeMap<>();
+        SortedMap<Integer, List<Integer>> methodsByReturnType = new TreeMap<>();
+        SortedMap<Integer, List<Integer>> methodsByParameterType = new TreeMap<>();
+        for (int typeId = 0; typeId < types.size(); typeId++) {
+            typesByPackage.computeIfAbsent(stringIds.get(types.get(typeId).packageName()), __ -> new ArrayList<>()).add(typeId);
+        }
+        for (int methodId = 0; methodId < methods.size(); methodId++) {
+            ApiMethod method = methods.get(methodId);
+            methodsByReturnType.computeIfAbsent(stringIds.get(method.returnType()), __ -> new ArrayList<>()).add(methodId);
+            for (String parameterType : new TreeSet<>(method.parameterTypes())) {
+                methodsByParameterType.computeIfAbsent(stringIds.get(parameterType), __ -> new ArrayList<>()).add(methodId);
+            }
+        }
+        writePostings(output, typesByPackage);
+        writePostings(output, methodsByReturnType);
+        writePostings(output, methodsByParameterType);
+        output.flush();
+    }
+
+    private static void writeColumn(DataOutputStream output, int length, IntUnaryOperator values) throws IOException {
+        for (int i = 0; i < length; i++) {
+            output.writeInt(values.applyAsInt(i));
+        }
+    }
+
+    private static void writePostings(DataOutputStream output, SortedMap<Integer, List<Integer>> postings) throws IOException {
+        output.writeInt(postings.size());
+        for (int key : postings.keySet()) {
+            output.writeInt(key);
+        }
+        int offset = 0;
+        for (List<Integer> ids : postings.values()) {
+            output.writeInt(offset);
+            offset += ids.size();
+        }
+        output.writeInt(offset);
+        for (List<Integer> ids : postings.values()) {
+            for (int id : ids) {
+                output.writeInt(id);
+            }
+        }
+    }
+
+    private static int padding(int length) {
+        return -length & (Integer.BYTES - 1);
+    }
+
+    /**
+     * Sorted lists of IDs, keyed by string IDs in ascending order.
+     */
+    static final class Postings {
+        private final IntBuffer keys;
+        private final IntBuffer offsets;
+        private final IntBuffer ids;
+
+        private Postings(IntBuffer keys, IntBuffer offsets, IntBuffer ids) {
+            this.keys = keys;
+            this.offsets = offsets;
+            this.ids = ids;
+        }
+
+        public int getKeyCount() {
+            return keys.limit();
+        }
+
+        public int getKey(int keyIndex) {
+            return keys.get(keyIndex);
+        }
+
+        /**
+         * Returns the sorted IDs for the key, or an empty array if there are none.
+         */
+        public int[] get(int key) {
+            int low = 0;
+            int high = keys.limit() - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = Integer.compare(keys.get(middle), key);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return getAt(middle);
+                }
+            }
+            return new int[0];
+        }
+
+        /**
+         * Returns the sorted IDs for the key at the given index.
+         */
+        public int[] getAt(int keyIndex) {
+            int start = offsets.get(keyIndex);
+            int[] result = new int[offsets.get(keyIndex + 1) - start];
+            ids.get(start, result);
+            return result;
+        }
+    }
+
+    /**
+     * Slices the consecutive sections of the mapping.
+     */
+    private static class Sections {
+        private final ByteBuffer mapping;
+        private int position;
+
+        public Sections(ByteBuffer mapping) {
+            this.mapping = mapping;
+        }
+
+        public int nextInt() {
+            int value = mapping.getInt(position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        public IntBuffer nextInts(int count) {
+            IntBuffer ints = mapping.slice(position, count * Integer.BYTES).asIntBuffer();
+            position += count * Integer.BYTES;
+            return ints;
+        }
+
+        public ByteBuffer nextBytes(int length) {
+            ByteBuffer bytes = mapping.slice(position, length);
+            position += length + padding(length);
+            return bytes;
+        }
+
+        public Postings nextPostings() {
+            int keyCount = nextInt();
+            IntBuffer keys = nextInts(keyCount);
+            IntBuffer offsets = nextInts(keyCount + 1);
+            return new Postings(keys, offsets, nextInts(offsets.get(keyCount)));
+        }
+    }
+}
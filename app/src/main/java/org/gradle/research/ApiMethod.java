@@ -0,0 +1,42 @@
+package org.gradle.research;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A public method of an {@link ApiType}.
+ * <p>
+ * Type names are in JVM internal form, e.g. {@code Lorg/gradle/api/provider/Provider}, {@code I} or {@code [Ljava/lang/String}.
+ *
+ * @param declaringType the name of the type declaring the method
+ * @param name the name of the method
+ * @param parameterTypes the types of the parameters, not including the receiver
+ * @param returnType the return type of the method
+ * @param isStatic whether the method is static
+ * @param isAbstract whether the method is abstract
+ */
+public record ApiMethod(
+    String declaringType,
+    String name,
+    ImmutableList<String> parameterTypes,
+    String returnType,
+    boolean isStatic,
+    boolean isAbstract
+) {
+    public static final String VOID = "V";
+
+    public boolean isInit() {
+        return name.equals("<init>");
+    }
+
+    public boolean isClinit() {
+        return name.equals("<clinit>");
+    }
+
+    public int getNumberOfParameters() {
+        return parameterTypes.size();
+    }
+
+    public String getParameterType(int index) {
+        return parameterTypes.get(index);
+    }
+}
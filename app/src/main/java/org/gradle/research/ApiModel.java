@@ -0,0 +1,442 @@
+package org.gradle.research;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.ImmutableIntArray;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The public API extracted from a classpath, independent of the class hierarchy it was extracted from.
+ * <p>
+ * Types, methods, properties and property names are identified by dense integer IDs.
+ * Types are sorted by package and simple name, and the methods of a type by signature, once when the model is created,
+ * so that the IDs are in report order and don't depend on the order in which a backend discovered them.
+ * The methods and properties of a type, the setters of a property and the types of a package are ranges of IDs,
+ * stored as offset tables indexed by the ID of the owner.
+ * <p>
+ * With inherited properties, the properties of a type also pair its property methods with the ones of its supertypes in the model.
+ * Properties a type inherits unchanged are left to the supertype, so they are only checked once.
+ */
+class ApiModel {
+    static final Comparator<ApiType> TYPE_ORDER = Comparator.comparing(ApiType::packageName)
+        .thenComparing(ApiType::simpleName);
+
+    static final Comparator<ApiMethod> METHOD_ORDER = Comparator.comparing(ApiMethod::name)
+        .thenComparing(method -> String.join(",", method.parameterTypes()))
+        .thenComparing(ApiMethod::returnType);
+
+    private static final int NO_GETTER = -1;
+
+    private final ImmutableList<ApiType> types;
+    private final ImmutableSet<String> lazyTypes;
+
+    // All methods, grouped by type
+    private final ImmutableList<ApiMethod> methods;
+    private final int[] typeMethodOffsets;
+
+    private final ImmutableList<String> packageNames;
+    private final int[] packageTypeOffsets;
+
+    private final boolean inheritedProperties;
+    private final ImmutableList<String> propertyNames;
+    private final int[] typePropertyOffsets;
+    private final int[] propertyNameIds;
+    private final int[] propertyGetterIds;
+    private final int[] propertySetterOffsets;
+    private final int[] setterMethodIds;
+
+    public ApiModel(List<ApiType> types, ImmutableSet<String> lazyTypes) {
+        this(types, lazyTypes, false);
+    }
+
+    /**
+     * @param types the public API types in any order
+     * @param lazyTypes the getter return types that are assignable to one of the lazy types
+     * @param inheritedProperties whether the properties of a type include the property methods inherited from its supertypes in the model
+     */
+    public ApiModel(List<ApiType> types, ImmutableSet<String> lazyTypes, boolean inheritedProperties) {
+        this.lazyTypes = lazyTypes;
+        this.inheritedProperties = inheritedProperties;
+        List<ApiType> sortedTypes = ImmutableList.sortedCopyOf(TYPE_ORDER, types);
+        int typeCount = sortedTypes.size();
+
+        ImmutableList.Builder<ApiMethod> methods = ImmutableList.builder();
+        this.typeMethodOffsets = new int[typeCount + 1];
+        ImmutableList.Builder<String> packageNames = ImmutableList.builder();
+        ImmutableIntArray.Builder packageTypeOffsets = ImmutableIntArray.builder();
+        // The property methods declared by each type as method IDs, by property name
+        List<SortedMap<String, PropertyMethodIds>> declaredProperties = new ArrayList<>(typeCount);
+
+        int methodCount = 0;
+        String currentPackage = null;
+        for (int typeId = 0; typeId < typeCount; typeId++) {
+            ApiType type = sortedTypes.get(typeId);
+            if (!type.packageName().equals(currentPackage)) {
+                currentPackage = type.packageName();
+                packageNames.add(currentPackage);
+                packageTypeOffsets.add(typeId);
+            }
+
+            typeMethodOffsets[typeId] = methodCount;
+            SortedMap<String, PropertyMethodIds> properties = new TreeMap<>();
+            for (ApiMethod method : ImmutableList.sortedCopyOf(METHOD_ORDER, type.methods())) {
+                int methodId = methodCount++;
+                methods.add(method);
+
+                if (method.isInit() || method.isClinit()) {
+                    continue;
+                }
+
+                PropertyMethod.from(method)
+                    .ifPresent(propertyMethod -> {
+                        PropertyMethodIds property = properties.computeIfAbsent(propertyMethod.propertyName(), __ -> new PropertyMethodIds());
+                        switch (propertyMethod) {
+                            case PropertyMethod.Getter ignored -> property.getterId = methodId;
+                            case PropertyMethod.Setter ignored -> property.setterIds.add(methodId);
+                        }
+                    });
+            }
+            declaredProperties.add(properties);
+        }
+        typeMethodOffsets[typeCount] = methodCount;
+        packageTypeOffsets.add(typeCount);
+        this.methods = methods.build();
+
+        // The properties to report for each type, by name
+        List<SortedMap<String, PropertyEntry>> typeProperties = new ArrayList<>(typeCount);
+        if (inheritedProperties) {
+            InheritedPropertyTables tables = new InheritedPropertyTables(sortedTypes, declaredProperties);
+            for (int typeId = 0; typeId < typeCount; typeId++) {
+                typeProperties.add(tables.getChangedProperties(typeId));
+            }
+        } else {
+            for (SortedMap<String, PropertyMethodIds> properties : declaredProperties) {
+                SortedMap<String, PropertyEntry> entries = new TreeMap<>();
+                properties.forEach((name, property) -> entries.put(name, property.toEntry()));
+                typeProperties.add(entries);
+            }
+        }
+
+        Map<String, Integer> propertyNameIds = new HashMap<>();
+        List<String> propertyNames = new ArrayList<>();
+        this.typePropertyOffsets = new int[typeCount + 1];
+        ImmutableIntArray.Builder propertyNameIdsBuilder = ImmutableIntArray.builder();
+        ImmutableIntArray.Builder propertyGetterIds = ImmutableIntArray.builder();
+        ImmutableIntArray.Builder propertySetterOffsets = ImmutableIntArray.builder();
+        ImmutableIntArray.Builder setterMethodIds = ImmutableIntArray.builder();
+        int propertyCount = 0;
+        int setterCount = 0;
+        for (int typeId = 0; typeId < typeCount; typeId++) {
+            typePropertyOffsets[typeId] = propertyCount;
+            for (Map.Entry<String, PropertyEntry> property : typeProperties.get(typeId).entrySet()) {
+                propertyNameIdsBuilder.add(propertyNameIds.computeIfAbsent(property.getKey(), name -> {
+                    propertyNames.add(name);
+                    return propertyNames.size() - 1;
+                }));
+                propertyGetterIds.add(property.getValue().getterId());
+                propertySetterOffsets.add(setterCount);
+                setterMethodIds.addAll(property.getValue().setterIds());
+                setterCount += property.getValue().setterIds().length();
+                propertyCount++;
+            }
+        }
+        typePropertyOffsets[typeCount] = propertyCount;
+        propertySetterOffsets.add(setterCount);
+
+        // The types share the method storage of the model
+        ImmutableList.Builder<ApiType> typesWithSharedMethods = ImmutableList.builderWithExpectedSize(typeCount);
+        for (int typeId = 0; typeId < typeCount; typeId++) {
+            ApiType type = sortedTypes.get(typeId);
+            typesWithSharedMethods.add(new ApiType(type.name(), type.isInterface(), type.supertypes(), this.methods.subList(typeMethodOffsets[typeId], typeMethodOffsets[typeId + 1])));
+        }
+        this.types = typesWithSharedMethods.build();
+        this.packageNames = packageNames.build();
+        this.packageTypeOffsets = packageTypeOffsets.build().toArray();
+        this.propertyNames = ImmutableList.copyOf(propertyNames);
+        this.propertyNameIds = propertyNameIdsBuilder.build().toArray();
+        this.propertyGetterIds = propertyGetterIds.build().toArray();
+        this.propertySetterOffsets = propertySetterOffsets.build().toArray();
+        this.setterMethodIds = setterMethodIds.build().toArray();
+    }
+
+    public boolean isInheritedProperties() {
+        return inheritedProperties;
+    }
+
+    /**
+     * Returns the types in ID order.
+     */
+    public ImmutableList<ApiType> getTypes() {
+        return types;
+    }
+
+    public int getTypeCount() {
+        return types.size();
+    }
+
+    public ApiType getType(int typeId) {
+        return types.get(typeId);
+    }
+
+    public ImmutableSet<String> getLazyTypes() {
+        return lazyTypes;
+    }
+
+    public boolean isLazyType(String typeName) {
+        return lazyTypes.contains(typeName);
+    }
+
+    public int getPackageCount() {
+        return packageNames.size();
+    }
+
+    public String getPackageName(int packageId) {
+        return packageNames.get(packageId);
+    }
+
+    /**
+     * Returns the ID of the first type in the package; the types of a package have consecutive IDs.
+     */
+    public int getFirstTypeId(int packageId) {
+        return packageTypeOffsets[packageId];
+    }
+
+    public int getEndTypeId(int packageId) {
+        return packageTypeOffsets[packageId + 1];
+    }
+
+    /**
+     * Returns the methods of all types in ID order.
+     */
+    public ImmutableList<ApiMethod> getMethods() {
+        return methods;
+    }
+
+    public int getMethodCount() {
+        return methods.size();
+    }
+
+    public ImmutableList<ApiMethod> getMethods(int typeId) {
+        return methods.subList(typeMethodOffsets[typeId], typeMethodOffsets[typeId + 1]);
+    }
+
+    public int getPropertyCount() {
+        return propertyNameIds.length;
+    }
+
+    /**
+     * Returns the ID of the first property of the type; the properties of a type have consecutive IDs, ordered by name.
+     */
+    public int getFirstPropertyId(int typeId) {
+        return typePropertyOffsets[typeId];
+    }
+
+    public int getEndPropertyId(int typeId) {
+        return typePropertyOffsets[typeId + 1];
+    }
+
+    public String getPropertyName(int propertyId) {
+        return propertyNames.get(propertyNameIds[propertyId]);
+    }
+
+    public Property getProperty(int propertyId) {
+        int getterId = propertyGetterIds[propertyId];
+        return new Property(getterId == NO_GETTER ? null : methods.get(getterId), new SetterList(propertySetterOffsets[propertyId], propertySetterOffsets[propertyId + 1]));
+    }
+
+    /**
+     * Returns the ID of the first method of the type; the methods of a type have consecutive IDs.
+     */
+    public int getFirstMethodId(int typeId) {
+        return typeMethodOffsets[typeId];
+    }
+
+    public int getEndMethodId(int typeId) {
+        return typeMethodOffsets[typeId + 1];
+    }
+
+    /**
+     * Returns the method ID of the getter of the property, or a negative value if the property has only setters.
+     */
+    public int getGetterId(int propertyId) {
+        return propertyGetterIds[propertyId];
+    }
+
+    public ImmutableIntArray getSetterIds(int propertyId) {
+        return ImmutableIntArray.copyOf(Arrays.copyOfRange(setterMethodIds, propertySetterOffsets[propertyId], propertySetterOffsets[propertyId + 1]));
+    }
+
+    /**
+     * A view of the setters of a property.
+     */
+    private class SetterList extends AbstractList<ApiMethod> {
+        private final int start;
+        private final int end;
+
+        public SetterList(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public ApiMethod get(int index) {
+            return methods.get(setterMethodIds[start + index]);
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+
+    private static class PropertyMethodIds {
+        private int getterId = NO_GETTER;
+        private final ImmutableIntArray.Builder setterIds = ImmutableIntArray.builder();
+
+        public PropertyEntry toEntry() {
+            return new PropertyEntry(getterId, setterIds.build());
+        }
+    }
+
+    /**
+     * The getter and setters of a property as method IDs.
+     */
+    private record PropertyEntry(int getterId, ImmutableIntArray setterIds) {
+    }
+
+    /**
+     * Builds the property table of each type, containing its own property methods and the ones inherited from its supertypes in the model.
+     * <p>
+     * Tables are built bottom-up and memoized, so every table is built once, after the tables of its supertypes.
+     * A table is derived from the table of the first supertype by adding entries, sharing the unchanged entries
+     * and most of the tree with it, so the tables take memory proportional to the declared property methods
+     * rather than to the depth of the hierarchy.
+     */
+    private class InheritedPropertyTables {
+        private final List<ApiType> types;
+        private final List<SortedMap<String, PropertyMethodIds>> declaredProperties;
+        private final Map<String, Integer> typeIds;
+        private final List<PersistentMap<String, PropertyEntry>> tables;
+        private final List<SortedSet<String>> changedNames;
+
+        public InheritedPropertyTables(List<ApiType> types, List<SortedMap<String, PropertyMethodIds>> declaredProperties) {
+            this.types = types;
+            this.declaredProperties = declaredProperties;
+            this.typeIds = new HashMap<>(types.size());
+            for (int typeId = 0; typeId < types.size(); typeId++) {
+                typeIds.put(types.get(typeId).name(), typeId);
+            }
+            this.tables = new ArrayList<>(Collections.nCopies(types.size(), null));
+            this.changedNames = new ArrayList<>(Collections.nCopies(types.size(), null));
+        }
+
+        /**
+         * Returns the properties declared by the type or combined from different supertypes, which are the ones
+         * that may have different findings than the same properties in the supertypes.
+         */
+        public SortedMap<String, PropertyEntry> getChangedProperties(int typeId) {
+            PersistentMap<String, PropertyEntry> table = getTable(typeId);
+            SortedMap<String, PropertyEntry> properties = new TreeMap<>();
+            for (String name : changedNames.get(typeId)) {
+                properties.put(name, table.get(name));
+            }
+            return properties;
+        }
+
+        private PersistentMap<String, PropertyEntry> getTable(int typeId) {
+            PersistentMap<String, PropertyEntry> table = tables.get(typeId);
+            if (table != null) {
+                return table;
+            }
+            // Guards against (malformed) cycles in the hierarchy
+            tables.set(typeId, PersistentMap.empty());
+
+            SortedSet<String> changed = new TreeSet<>();
+            table = null;
+            for (String supertype : types.get(typeId).supertypes()) {
+                Integer supertypeId = typeIds.get(supertype);
+                if (supertypeId == null) {
+                    continue;
+                }
+                PersistentMap<String, PropertyEntry> supertypeTable = getTable(supertypeId);
+                if (table == null) {
+                    table = supertypeTable;
+                } else if (supertypeTable != table) {
+                    table = mergeInherited(table, supertypeTable, changed);
+                }
+            }
+            if (table == null) {
+                table = PersistentMap.empty();
+            }
+            for (Map.Entry<String, PropertyMethodIds> declared : declaredProperties.get(typeId).entrySet()) {
+                PropertyEntry inherited = table.get(declared.getKey());
+                PropertyEntry entry = declared.getValue().toEntry();
+                table = table.with(declared.getKey(), inherited == null ? entry : combine(entry, inherited));
+                changed.add(declared.getKey());
+            }
+            tables.set(typeId, table);
+            changedNames.set(typeId, changed);
+            return table;
+        }
+
+        private PersistentMap<String, PropertyEntry> mergeInherited(PersistentMap<String, PropertyEntry> table, PersistentMap<String, PropertyEntry> supertypeTable, Set<String> changed) {
+            List<String> names = new ArrayList<>(supertypeTable.size());
+            List<PropertyEntry> entries = new ArrayList<>(supertypeTable.size());
+            supertypeTable.forEach((name, entry) -> {
+                names.add(name);
+                entries.add(entry);
+            });
+            PersistentMap<String, PropertyEntry> merged = table;
+            for (int i = 0; i < names.size(); i++) {
+                PropertyEntry existing = merged.get(names.get(i));
+                PropertyEntry entry = existing == null ? entries.get(i) : combine(existing, entries.get(i));
+                if (entry != existing) {
+                    merged = merged.with(names.get(i), entry);
+                    // Combining the property methods of different supertypes can result in new findings
+                    if (existing != null) {
+                        changed.add(names.get(i));
+                    }
+                }
+            }
+            return merged;
+        }
+
+        /**
+         * Combines the property methods of a type or earlier supertype with the ones of a later supertype.
+         * The getter of the former wins, and setters of the latter are only added if no setter with the same parameter type exists.
+         */
+        private PropertyEntry combine(PropertyEntry preferred, PropertyEntry other) {
+            if (preferred == other) {
+                return preferred;
+            }
+            int getterId = preferred.getterId() == NO_GETTER ? other.getterId() : preferred.getterId();
+            ImmutableIntArray.Builder setterIds = ImmutableIntArray.builder().addAll(preferred.setterIds());
+            Set<String> setterTypes = new HashSet<>();
+            preferred.setterIds().forEach(setterId -> setterTypes.add(methods.get(setterId).getParameterType(0)));
+            other.setterIds().forEach(setterId -> {
+                if (setterTypes.add(methods.get(setterId).getParameterType(0))) {
+                    setterIds.add(setterId);
+                }
+            });
+            ImmutableIntArray combinedSetterIds = setterIds.build();
+            if (getterId == preferred.getterId() && combinedSetterIds.length() == preferred.setterIds().length()) {
+                return preferred;
+            }
+            return new PropertyEntry(getterId, combinedSetterIds);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package org.gradle.research;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Stores extracted {@link ApiModel}s in a directory, keyed by the content of the classpath and the analysis settings.
+ * <p>
+ * Each model is written to a compact binary file with a shared string table, so loading it back does not
+ * require building a class hierarchy.
+ */
+class ApiModelCache {
+    private static final int MAGIC = 0x41504943;
+    private static final int FORMAT_VERSION = 5;
+
+    private static final int FLAG_STATIC = 1;
+    private static final int FLAG_ABSTRACT = 2;
+
+    private final File directory;
+
+    public ApiModelCache(File directory) {
+        this.directory = directory;
+    }
+
+    public static HashCode cacheKey(List<File> classpath, ApiTypeFilter apiTypeFilter, AnalysisOptions options) throws IOException {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putInt(FORMAT_VERSION);
+        for (File classpathEntry : classpath) {
+            hashClasspathEntry(hasher, classpathEntry.toPath());
+        }
+        hasher.putString(apiTypeFilter.getCacheKey(), StandardCharsets.UTF_8);
+        hasher.putBoolean(options.isIgnoreDeprecated());
+        hasher.putBoolean(options.isInherited());
+        hasher.putString(options.getBackend().name(), StandardCharsets.UTF_8);
+        List<String> lazyRootTypes = ApiModelExtractor.lazyRootTypes(options);
+        hasher.putInt(lazyRootTypes.size());
+        for (String lazyRootType : lazyRootTypes) {
+            hasher.putString(lazyRootType, StandardCharsets.UTF_8).putByte((byte) 0);
+        }
+        return hasher.hash();
+    }
+
+    private static void hashClasspathEntry(Hasher hasher, Path classpathEntry) throws IOException {
+        if (Files.isRegularFile(classpathEntry)) {
+            hasher.putByte((byte) 'F');
+            hasher.putBytes(hashFile(classpathEntry).asBytes());
+        } else if (Files.isDirectory(classpathEntry)) {
+            hasher.putByte((byte) 'D');
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(classpathEntry)) {
+                files = walk.filter(Files::isRegularFile).sorted().toList();
+            }
+            for (Path file : files) {
+                hasher.putString(classpathEntry.relativize(file).toString(), StandardCharsets.UTF_8);
+                hasher.putBytes(hashFile(file).asBytes());
+            }
+        } else {
+            hasher.putByte((byte) 'M');
+        }
+    }
+
+    private static HashCode hashFile(Path file) throws IOException {
+        return com.google.common.io.Files.asByteSource(file.toFile()).hash(Hashing.sha256());
+    }
+
+    public Optional<ApiModel> load(HashCode key) throws IOException {
+        Path cacheFile = cacheFile(key);
+        if (!Files.isRegularFile(cacheFile)) {
+            return Optional.empty();
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            return Optional.ofNullable(read(input));
+        } catch (IOException | RuntimeException e) {
+            // A truncated or corrupt file, e.g. from a full disk, is extracted and stored again
+            Files.deleteIfExists(cacheFile);
+            return Optional.empty();
+        }
+    }
+
+    public void store(HashCode key, ApiModel model) throws IOException {
+        Files.createDirectories(directory.toPath());
+        Path cacheFile = cacheFile(key);
+        Path tempFile = Files.createTempFile(directory.toPath(), key.toString(), ".tmp");
+        try {
+            try (OutputStream output = Files.newOutputStream(tempFile)) {
+                write(model, output);
+            }
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private Path cacheFile(HashCode key) {
+        return directory.toPath().resolve(key + ".bin");
+    }
+
+    static void write(ApiModel model, OutputStream stream) throws IOException {
+        StringTable strings = new StringTable();
+        model.getTypes().forEach(type -> {
+            strings.intern(type.name());
+            type.supertypes().forEach(strings::intern);
+            type.methods().forEach(method -> {
+                strings.intern(method.declaringType());
+                strings.intern(method.name());
+                strings.intern(method.returnType());
+                method.parameterTypes().forEach(strings::intern);
+            });
+        });
+        model.getLazyTypes().forEach(strings::intern);
+
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeBoolean(model.isInheritedProperties());
+        output.writeInt(strings.values.size());
+        for (String value : strings.values) {
+            output.writeUTF(value);
+        }
+        output.writeInt(model.getTypes().size());
+        for (ApiType type : model.getTypes()) {
+            output.writeInt(strings.indexOf(type.name()));
+            output.writeBoolean(type.isInterface());
+            output.writeInt(type.supertypes().size());
+            for (String supertype : type.supertypes()) {
+                output.writeInt(strings.indexOf(supertype));
+            }
+            output.writeInt(type.methods().size());
+            for (ApiMethod method : type.methods()) {
+                output.writeInt(strings.indexOf(method.declaringType()));
+                output.writeInt(strings.indexOf(method.name()));
+                output.writeInt(strings.indexOf(method.returnType()));
+                output.writeByte((method.isStatic() ? FLAG_STATIC : 0) | (method.isAbstract() ? FLAG_ABSTRACT : 0));
+                output.writeByte(method.getNumberOfParameters());
+                for (String parameterType : method.parameterTypes()) {
+                    output.writeInt(strings.indexOf(parameterType));
+                }
+            }
+        }
+        output.writeInt(model.getLazyTypes().size());
+        for (String lazyType : model.getLazyTypes()) {
+            output.writeInt(strings.indexOf(lazyType));
+        }
+        output.flush();
+    }
+
+    /**
+     * Reads a model written by {@link #write(ApiModel, OutputStream)}, or returns {@code null} if the data
+     * was written in a different format.
+     */
+    static ApiModel read(InputStream stream) throws IOException {
+        DataInputStream input = stream instanceof DataInputStream dataInput
+            ? dataInput
+            : new DataInputStream(new BufferedInputStream(stream));
+        if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+            return null;
+        }
+        boolean inheritedProperties = input.readBoolean();
+        String[] strings = new String[input.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = input.readUTF();
+        }
+        int typeCount = input.readInt();
+        ImmutableList.Builder<ApiType> types = ImmutableList.builderWithExpectedSize(typeCount);
+        for (int i = 0; i < typeCount; i++) {
+            String name = strings[input.readInt()];
+            boolean isInterface = input.readBoolean();
+            int supertypeCount = input.readInt();
+            ImmutableList.Builder<String> supertypes = ImmutableList.builderWithExpectedSize(supertypeCount);
+            for (int j = 0; j < supertypeCount; j++) {
+                supertypes.add(strings[input.readInt()]);
+            }
+            int methodCount = input.readInt();
+            ImmutableList.Builder<ApiMethod> methods = ImmutableList.builderWithExpectedSize(methodCount);
+            for (int j = 0; j < methodCount; j++) {
+                String declaringType = strings[input.readInt()];
+                String methodName = strings[input.readInt()];
+                String returnType = strings[input.readInt()];
+                int flags = input.readByte();
+                int parameterCount = input.readUnsignedByte();
+                ImmutableList.Builder<String> parameterTypes = ImmutableList.builderWithExpectedSize(parameterCount);
+                for (int k = 0; k < parameterCount; k++) {
+                    parameterTypes.add(strings[input.readInt()]);
+                }
+                methods.add(new ApiMethod(declaringType, methodName, parameterTypes.build(), returnType,
+                    (flags & FLAG_STATIC) != 0, (flags & FLAG_ABSTRACT) != 0));
+            }
+            types.add(new ApiType(name, isInterface, supertypes.build(), methods.build()));
+        }
+        int lazyTypeCount = input.readInt();
+        ImmutableSet.Builder<String> lazyTypes = ImmutableSet.builderWithExpectedSize(lazyTypeCount);
+        for (int i = 0; i < lazyTypeCount; i++) {
+            lazyTypes.add(strings[input.readInt()]);
+        }
+        return new ApiModel(types.build(), lazyTypes.build(), inheritedProperties);
+    }
+
+    private static class StringTable {
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        public void intern(String value) {
+            indexes.computeIfAbsent(value, __ -> {
+                values.add(value);
+                return values.size() - 1;
+            });
+        }
+
+        public int indexOf(String value) {
+            return indexes.get(value);
+        }
+    }
+}
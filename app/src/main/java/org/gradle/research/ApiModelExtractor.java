@@ -0,0 +1,111 @@
+package org.gradle.research;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Extracts an {@link ApiModel} from a classpath.
+ * <p>
+ * The order of the extracted types and methods doesn't matter, as {@link ApiModel} sorts them.
+ */
+interface ApiModelExtractor {
+    String PROVIDER_TYPE = "Lorg/gradle/api/provider/Provider";
+    // TODO This should probably be FileCollection to match Provider
+    String CONFIGURABLE_FILE_COLLECTION_TYPE = "Lorg/gradle/api/file/ConfigurableFileCollection";
+
+    ApiModel extract(List<File> classpath) throws IOException, ClassHierarchyException;
+
+    static ApiModelExtractor create(ApiTypeFilter apiTypeFilter, AnalysisOptions options, AnalysisEnvironment environment, Profiler profiler) {
+        return switch (options.getBackend()) {
+            case FAST -> new ClassFileApiModelExtractor(apiTypeFilter, options, profiler);
+            case WALA -> new WalaApiModelExtractor(apiTypeFilter, options, environment, profiler);
+        };
+    }
+
+    /**
+     * Creates the pool to extract types on with the given number of threads, or returns {@code null} to extract them on the calling thread.
+     * A single pool is used for all the extractions of a run.
+     */
+    @Nullable
+    static ForkJoinPool createExtractionPool(int threads) {
+        return threads == 1 ? null : new ForkJoinPool(threads);
+    }
+
+    /**
+     * Extracts the API types from the given candidates, in parallel on the given pool, or on the calling thread if there is none.
+     */
+    static <T> ImmutableList<ApiType> extractTypes(List<T> candidates, Function<T, Optional<ApiType>> extractor, @Nullable ForkJoinPool pool) throws IOException {
+        if (pool == null) {
+            return extractTypes(candidates.stream(), extractor);
+        }
+        // Types are extracted independently of each other
+        try {
+            return pool.submit(() -> extractTypes(candidates.parallelStream(), extractor)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting API types", e);
+        } catch (ExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static <T> ImmutableList<ApiType> extractTypes(Stream<T> candidates, Function<T, Optional<ApiType>> extractor) {
+        return candidates
+            .map(extractor)
+            .flatMap(Optional::stream)
+            .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Returns the types whose subtypes are lazy, the built-in ones followed by those given with {@code --lazy-type}, e.g. {@code Lorg/gradle/api/provider/Provider}.
+     */
+    static ImmutableList<String> lazyRootTypes(AnalysisOptions options) {
+        return Stream.concat(
+                Stream.of(PROVIDER_TYPE, CONFIGURABLE_FILE_COLLECTION_TYPE),
+                options.getLazyTypes().stream().map(type -> "L" + type.replace('.', '/')))
+            .distinct()
+            .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Returns the return types of the getters that can be reported as non-lazy, which are the candidates for lazy types.
+     *
+     * @param inheritedProperties whether the properties of classes include the default getters inherited from interfaces
+     */
+    static Set<String> collectGetterTypes(List<ApiType> types, boolean inheritedProperties) {
+        Set<String> getterTypes = new LinkedHashSet<>();
+        for (ApiType type : types) {
+            // Lazy getters are only reported on non-interface types, which can inherit default getters from interfaces
+            if (inheritedProperties || !type.isInterface()) {
+                type.methods().stream()
+                    .filter(method -> !method.isAbstract())
+                    .map(PropertyMethod::from)
+                    .flatMap(Optional::stream)
+                    .filter(PropertyMethod.Getter.class::isInstance)
+                    .forEach(getter -> getterTypes.add(getter.method().returnType()));
+            }
+        }
+        return getterTypes;
+    }
+
+    /**
+     * Receives the models of a classpath that is extracted in parts.
+     */
+    interface ApiModelConsumer {
+        void accept(ApiModel model) throws IOException;
+    }
+}
@@ -0,0 +1,85 @@
+package org.gradle.research;
+
+import com.google.common.hash.HashCode;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Loads the {@link ApiModel} for a classpath, reusing a cached model if one is available.
+ */
+public class ApiModelLoader {
+    private final List<File> classpath;
+    private final AnalysisOptions options;
+    private final AnalysisEnvironment environment;
+    private final Profiler profiler;
+    private final ApiTypeFilter apiTypeFilter;
+    @Nullable
+    private final ApiModelCache cache;
+
+    public ApiModelLoader(List<File> classpath, AnalysisOptions options, Profiler profiler) {
+        this(classpath, options, AnalysisEnvironment.standalone(), profiler);
+    }
+
+    ApiModelLoader(List<File> classpath, AnalysisOptions options, AnalysisEnvironment environment, Profiler profiler) {
+        this.classpath = classpath;
+        this.options = options;
+        this.environment = environment;
+        this.profiler = profiler;
+        this.apiTypeFilter = options.createApiTypeFilter();
+        this.cache = options.getCacheDirectory() == null ? null : new ApiModelCache(options.getCacheDirectory());
+    }
+
+    boolean isPipeline() {
+        return options.isPipeline();
+    }
+
+    /**
+     * Extracts the model one package at a time, handing each part to the consumer before extracting the next one.
+     * Always uses the class file backend, as a class hierarchy cannot be built for a single package; models are not cached.
+     */
+    void loadByPackage(ApiModelExtractor.ApiModelConsumer consumer) throws IOException {
+        if (options.isInherited()) {
+            throw new IllegalArgumentException("--inherited cannot be combined with --pipeline, as supertypes may be in other packages");
+        }
+        new ClassFileApiModelExtractor(apiTypeFilter, options, environment.classFiles(), profiler).extractByPackage(classpath, consumer);
+        apiTypeFilter.recordStatistics(profiler);
+    }
+
+    ApiModel load() throws IOException, ClassHierarchyException {
+        if (environment.classFiles() != null) {
+            // In watch mode, reusing the class files that did not change is cheaper than hashing the classpath for the cache
+            ApiModel model = new ClassFileApiModelExtractor(apiTypeFilter, options, environment.classFiles(), profiler).extract(classpath);
+            apiTypeFilter.recordStatistics(profiler);
+            return model;
+        }
+        if (cache == null) {
+            return extract();
+        }
+        HashCode key;
+        Optional<ApiModel> cachedModel;
+        try (var ignored = profiler.start("Load cached model")) {
+            key = ApiModelCache.cacheKey(classpath, apiTypeFilter, options);
+            cachedModel = cache.load(key);
+        }
+        if (cachedModel.isPresent()) {
+            profiler.count("cacheHits", 1);
+            return cachedModel.get();
+        }
+        ApiModel model = extract();
+        try (var ignored = profiler.start("Store cached model")) {
+            cache.store(key, model);
+        }
+        return model;
+    }
+
+    private ApiModel extract() throws IOException, ClassHierarchyException {
+        ApiModel model = ApiModelExtractor.create(apiTypeFilter, options, environment, profiler).extract(classpath);
+        apiTypeFilter.recordStatistics(profiler);
+        return model;
+    }
+}
@@ -0,0 +1,108 @@
+package org.gradle.research;
+
+import com.ibm.wala.types.TypeName;
+import com.ibm.wala.util.config.SetOfClasses;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Excludes the classes from the analysis scope that are not needed to analyze the public API.
+ * <p>
+ * The classpath is scanned before the class hierarchy is built, reading only class headers and method
+ * signatures. A class is required if it is a public API type, if it is the return type of a public
+ * API method, if it is one of the given lazy types, or if it is a supertype of a required class.
+ * All other classes on the classpath, most notably the implementation classes in {@code internal}
+ * packages, are never loaded by WALA.
+ */
+class ApiScopeExclusions extends SetOfClasses {
+    private final Set<String> classpathClasses;
+    private final Set<String> requiredClasses;
+
+    private ApiScopeExclusions(Set<String> classpathClasses, Set<String> requiredClasses) {
+        this.classpathClasses = classpathClasses;
+        this.requiredClasses = requiredClasses;
+    }
+
+    /**
+     * @param lazyTypes the names of types that are looked up for assignability checks, in JVM internal form, e.g. {@code Lorg/gradle/api/provider/Provider}
+     */
+    public static ApiScopeExclusions scan(List<File> classpath, ApiTypeFilter apiTypeFilter, Collection<String> lazyTypes) throws IOException {
+        try (ClasspathClasses classes = ClasspathClasses.scan(classpath)) {
+            Set<String> required = new HashSet<>();
+            Deque<String> queue = new ArrayDeque<>();
+            lazyTypes.forEach(lazyType -> require(lazyType.substring(1), classes, required, queue));
+            for (String className : classes.getClassNames()) {
+                // Anonymous and nested types are not part of the report
+                if (className.substring(className.lastIndexOf('/') + 1).contains("$")) {
+                    continue;
+                }
+                if (!apiTypeFilter.includeTypeName(TypeName.findOrCreate("L" + className))) {
+                    continue;
+                }
+                ClassFile classFile = classes.read(className);
+                if (!classFile.isPublic()) {
+                    continue;
+                }
+                if (required.add(className)) {
+                    requireSupertypes(classFile, classes, required, queue);
+                }
+                classFile.methods().stream()
+                    .filter(ClassFile.Method::isPublic)
+                    .map(method -> toClassName(method.returnTypeDescriptor()))
+                    .forEach(returnType -> require(returnType, classes, required, queue));
+            }
+            while (!queue.isEmpty()) {
+                requireSupertypes(classes.read(queue.pop()), classes, required, queue);
+            }
+            return new ApiScopeExclusions(Set.copyOf(classes.getClassNames()), required);
+        }
+    }
+
+    private static void requireSupertypes(ClassFile classFile, ClasspathClasses classes, Set<String> required, Deque<String> queue) {
+        if (classFile.superName() != null) {
+            require(classFile.superName(), classes, required, queue);
+        }
+        classFile.interfaces().forEach(superInterface -> require(superInterface, classes, required, queue));
+    }
+
+    private static void require(String className, ClasspathClasses classes, Set<String> required, Deque<String> queue) {
+        if (className != null && classes.contains(className) && required.add(className)) {
+            queue.add(className);
+        }
+    }
+
+    /**
+     * Returns the class name referenced by a field descriptor, or {@code null} for primitive types.
+     */
+    private static String toClassName(String descriptor) {
+        int start = 0;
+        while (descriptor.charAt(start) == '[') {
+            start++;
+        }
+        if (descriptor.charAt(start) != 'L') {
+            return null;
+        }
+        return descriptor.substring(start + 1, descriptor.length() - 1);
+    }
+
+    public int getExcludedCount() {
+        return classpathClasses.size() - requiredClasses.size();
+    }
+
+    @Override
+    public boolean contains(String klassName) {
+        return classpathClasses.contains(klassName) && !requiredClasses.contains(klassName);
+    }
+
+    @Override
+    public void add(String klass) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,21 @@
+package org.gradle.research;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A public API type extracted from the analyzed classpath.
+ *
+ * @param name the type name in JVM internal form, e.g. {@code Lorg/gradle/api/Project}
+ * @param isInterface whether the type is an interface
+ * @param supertypes the names of the superclass and the directly implemented interfaces, which need not be part of the API
+ * @param methods the public methods declared by the type; sorted by signature in an {@link ApiModel}
+ */
+public record ApiType(String name, boolean isInterface, ImmutableList<String> supertypes, ImmutableList<ApiMethod> methods) {
+    public String packageName() {
+        return name.substring(1, name.lastIndexOf('/'));
+    }
+
+    public String simpleName() {
+        return name.substring(name.lastIndexOf('/') + 1);
+    }
+}
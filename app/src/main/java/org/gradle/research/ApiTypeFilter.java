@@ -1,20 +1,20 @@
 package org.gradle.research;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.core.util.strings.Atom;
+import com.ibm.wala.types.TypeName;
 
-import javax.annotation.Nonnull;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class ApiTypeFilter {
-    private static final ImmutableList<Pattern> publicApiPackages = Stream.of(
+    private static final ImmutableList<String> publicApiPackages = ImmutableList.of(
             "org/gradle/",
             "org/gradle/api/.*",
             "org/gradle/authentication/.*",
@@ -49,52 +49,79 @@ public class ApiTypeFilter {
             "org/gradle/work/.*",
             "org/gradle/workers/.*",
             "org/gradle/util/.*"
-        )
-        .map(Pattern::compile)
-        .collect(ImmutableList.toImmutableList());
+        );
 
-    private static final ImmutableList<Pattern> defaultIgnoredPackages = Stream.of(
+    private static final ImmutableList<String> defaultIgnoredPackages = ImmutableList.of(
             ".*/internal/.*"
-        )
-        .map(Pattern::compile)
-        .collect(ImmutableList.toImmutableList());
+        );
 
-    private final ImmutableList<Pattern> ignoredPackages;
-    private final ImmutableSet<String> ignoredTypes;
+    private static final PackageMatcher publicApiPackageMatcher = new PackageMatcher(publicApiPackages);
 
-    private final LoadingCache<IClass, Boolean> publicApiLookup = CacheBuilder.newBuilder()
-        .build(new CacheLoader<>() {
-            @Nonnull
-            @Override
-            public Boolean load(@Nonnull IClass type) {
-                Atom packageName = type.getName().getPackage();
-                if (packageName == null) {
-                    return false;
-                }
-                if (ignoredTypes.contains(type.getName().toString())) {
-                    return false;
-                }
-                var packageWithTrailingSlash = packageName + "/";
-                return publicApiPackages.stream()
-                           .anyMatch(pattern -> pattern.matcher(packageWithTrailingSlash).matches())
-                       && ignoredPackages.stream()
-                           .noneMatch(pattern -> pattern.matcher(packageWithTrailingSlash).matches());
-            }
-        });
+    private final ImmutableList<String> ignoredPackages;
+    private final PackageMatcher ignoredPackageMatcher;
+    private final ImmutableSet<TypeName> ignoredTypes;
+
+    // Thousands of types share a few hundred packages, so the package decision is memoized per package
+    private final Map<Atom, Boolean> publicApiPackageLookup = new ConcurrentHashMap<>();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder misses = new LongAdder();
 
     public ApiTypeFilter(List<String> ignoredPackagePatterns, List<String> ignoredTypes) {
         this.ignoredPackages = Stream.concat(
                 defaultIgnoredPackages.stream(),
                 ignoredPackagePatterns.stream()
-                    .map(ignoredPackage -> ignoredPackage.replace('.', '/') + "/.*")
-                    .map(Pattern::compile))
+                    .map(ignoredPackage -> ignoredPackage.replace('.', '/') + "/.*"))
             .collect(ImmutableList.toImmutableList());
+        this.ignoredPackageMatcher = new PackageMatcher(ignoredPackages);
         this.ignoredTypes = ignoredTypes.stream()
-            .map(ignoredType -> "L" + ignoredType.replace('.', '/'))
+            .map(ignoredType -> TypeName.findOrCreate("L" + ignoredType.replace('.', '/')))
             .collect(ImmutableSet.toImmutableSet());
     }
 
+    /**
+     * Returns a stable description of the filter settings, suitable for keying cached analysis results.
+     */
+    public String getCacheKey() {
+        return Stream.concat(
+                ignoredPackages.stream().map(pattern -> "package:" + pattern),
+                ignoredTypes.stream().map(TypeName::toString).sorted().map(type -> "type:" + type))
+            .collect(Collectors.joining("\n"));
+    }
+
     public boolean includeType(IClass type) {
-        return publicApiLookup.getUnchecked(type);
+        return includeTypeName(type.getName());
+    }
+
+    /**
+     * Returns whether the type with the given name is part of the public API, without loading the type.
+     */
+    public boolean includeTypeName(TypeName typeName) {
+        Atom packageName = typeName.getPackage();
+        if (packageName == null) {
+            return false;
+        }
+        if (ignoredTypes.contains(typeName)) {
+            return false;
+        }
+        lookups.increment();
+        return publicApiPackageLookup.computeIfAbsent(packageName, this::includePackage);
+    }
+
+    /**
+     * Records the number of package lookups and how many of them were answered from the cache.
+     */
+    public void recordStatistics(Profiler profiler) {
+        long lookupCount = lookups.sum();
+        long hitCount = lookupCount - misses.sum();
+        profiler.count("apiTypeFilter.lookups", lookupCount);
+        profiler.count("apiTypeFilter.hits", hitCount);
+        profiler.record("apiTypeFilter.hitRate", lookupCount == 0 ? 0 : (double) hitCount / lookupCount);
+    }
+
+    private boolean includePackage(Atom packageName) {
+        misses.increment();
+        String name = packageName.toString();
+        return publicApiPackageMatcher.matches(name)
+               && !ignoredPackageMatcher.matches(name);
     }
 }
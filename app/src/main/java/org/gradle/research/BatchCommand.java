@@ -0,0 +1,175 @@
+package org.gradle.research;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Spec;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Generates reports for many Gradle versions in a single JVM.
+ * <p>
+ * The JDK class files are read once and shared by the class hierarchies of all versions,
+ * which are analyzed concurrently on virtual threads.
+ */
+@Command(name = "batch", description = "Generates reports for each Gradle API JAR or distribution in a directory.")
+public class BatchCommand implements Callable<Integer> {
+    private static final String VERSION_PLACEHOLDER = "{version}";
+
+    /**
+     * The estimated heap use of a class hierarchy per megabyte of compressed class files on its classpath.
+     */
+    private static final int HEAP_PER_CLASSPATH_MEGABYTE = 10;
+
+    /**
+     * The share of the memory budget that the JDK class files kept for all versions may use.
+     */
+    private static final int JDK_CLASSES_BUDGET_DIVISOR = 4;
+
+    @Spec
+    private CommandSpec spec;
+
+    @Option(
+        names = "--input-dir",
+        required = true,
+        description = "Directory containing gradle-api-<version>.jar files or unpacked gradle-<version> distributions")
+    private File inputDirectory;
+
+    @Option(
+        names = "--output-pattern",
+        required = true,
+        description = "Output file for each report, where '" + VERSION_PLACEHOLDER + "' is replaced with the Gradle version (e.g. 'reports/report-{version}.md')")
+    private String outputPattern;
+
+    @Option(
+        names = "--title-pattern",
+        description = "Title of each report, where '" + VERSION_PLACEHOLDER + "' is replaced with the Gradle version",
+        defaultValue = "Public API Report for Gradle " + VERSION_PLACEHOLDER)
+    private String titlePattern;
+
+    @Option(
+        names = "--format",
+        description = "Format of the reports: 'markdown', 'jsonl' or 'sarif'; defaults to ${DEFAULT-VALUE}")
+    private ReportFormat format = ReportFormat.MARKDOWN;
+
+    @Option(
+        names = "--memory-budget",
+        description = "Heap in megabytes that the shared JDK class files and the class hierarchies being analyzed at the same time may use; defaults to three quarters of the maximum heap")
+    private int memoryBudgetMegabytes = (int) (Runtime.getRuntime().maxMemory() / (1024 * 1024) * 3 / 4);
+
+    @Mixin
+    private AnalysisOptions analysisOptions;
+
+    @Override
+    public Integer call() throws Exception {
+        if (!outputPattern.contains(VERSION_PLACEHOLDER)) {
+            throw new ParameterException(spec.commandLine(), "--output-pattern must contain '" + VERSION_PLACEHOLDER + "', otherwise all reports are written to the same file");
+        }
+        List<Input> inputs = findInputs(inputDirectory.toPath());
+        if (inputs.isEmpty()) {
+            System.err.println("No Gradle API JARs or distributions found in " + inputDirectory.getAbsolutePath());
+            return 1;
+        }
+
+        // The JDK class files are kept until all reports are written, so their part of the budget is never released
+        int jdkClassesMegabytes = Math.max(0, memoryBudgetMegabytes) / JDK_CLASSES_BUDGET_DIVISOR;
+        int hierarchiesMegabytes = Math.max(1, memoryBudgetMegabytes - jdkClassesMegabytes);
+        AnalysisEnvironment environment = new AnalysisEnvironment(new SharedJdkClasses(jdkClassesMegabytes * 1024L * 1024), ClasspathModules.DEFAULT);
+        Semaphore memoryBudget = new Semaphore(hierarchiesMegabytes);
+        List<Future<File>> reports = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Input input : inputs) {
+                reports.add(executor.submit(() -> {
+                    int permits = Math.min(hierarchiesMegabytes, input.estimateHeapMegabytes());
+                    memoryBudget.acquire(permits);
+                    try {
+                        return generateReport(input, environment);
+                    } finally {
+                        memoryBudget.release(permits);
+                    }
+                }));
+            }
+        }
+
+        int failures = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            try {
+                System.out.println("Report for " + inputs.get(i).version() + " generated at " + reports.get(i).get().getAbsolutePath());
+            } catch (ExecutionException e) {
+                failures++;
+                System.err.println("Failed to generate report for " + inputs.get(i).version() + ": " + e.getCause());
+            }
+        }
+        return failures == 0 ? 0 : 1;
+    }
+
+    private File generateReport(Input input, AnalysisEnvironment environment) throws Exception {
+        File output = new File(outputPattern.replace(VERSION_PLACEHOLDER, input.version()));
+        //noinspection ResultOfMethodCallIgnored
+        output.getAbsoluteFile().getParentFile().mkdirs();
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(output.toPath()))) {
+            String title = titlePattern.replace(VERSION_PLACEHOLDER, input.version());
+            PublicApiAnalyzer.writeReport(title, input.classpath(), analysisOptions, format, environment, writer, new Profiler());
+        }
+        return output;
+    }
+
+    private static List<Input> findInputs(Path directory) throws IOException {
+        List<Input> inputs = new ArrayList<>();
+        try (Stream<Path> children = Files.list(directory)) {
+            for (Path child : children.sorted().toList()) {
+                String fileName = child.getFileName().toString();
+                if (Files.isRegularFile(child) && fileName.endsWith(".jar")) {
+                    String version = fileName.substring(0, fileName.length() - ".jar".length());
+                    inputs.add(new Input(stripPrefix(version, "gradle-api-"), List.of(child.toFile())));
+                } else if (Files.isDirectory(child.resolve("lib"))) {
+                    List<File> classpath = new ArrayList<>();
+                    classpath.addAll(listJars(child.resolve("lib")));
+                    classpath.addAll(listJars(child.resolve("lib/plugins")));
+                    inputs.add(new Input(stripPrefix(fileName, "gradle-"), classpath));
+                }
+            }
+        }
+        return inputs;
+    }
+
+    private static List<File> listJars(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(file -> file.getFileName().toString().endsWith(".jar"))
+                .sorted()
+                .map(Path::toFile)
+                .toList();
+        }
+    }
+
+    private static String stripPrefix(String name, String prefix) {
+        return name.startsWith(prefix) ? name.substring(prefix.length()) : name;
+    }
+
+    private record Input(String version, List<File> classpath) {
+        public int estimateHeapMegabytes() {
+            long classpathBytes = classpath.stream().mapToLong(File::length).sum();
+            return (int) Math.max(1, classpathBytes * HEAP_PER_CLASSPATH_MEGABYTE / (1024 * 1024));
+        }
+    }
+}
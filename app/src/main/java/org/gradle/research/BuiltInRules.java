@@ -0,0 +1,170 @@
+package org.gradle.research;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * The rules producing the sections of the report, in the order they appear in the report.
+ */
+final class BuiltInRules {
+    private BuiltInRules() {
+    }
+
+    public static ImmutableList<ReportRule> all() {
+        return ImmutableList.of(
+            new SettersWithoutGetters(),
+            new InconsistentSetterTypes(false),
+            new InconsistentSetterTypes(true),
+            new PropertyNameSetters(),
+            new FluentSetters(),
+            new LazyPropertiesWithNonAbstractGetters()
+        );
+    }
+
+    private static class SettersWithoutGetters implements ReportRule {
+        @Override
+        public String getId() {
+            return "setter-without-getter";
+        }
+
+        @Override
+        public String getTitle() {
+            return "Setters without getters";
+        }
+
+        @Override
+        public void checkProperty(PropertyContext context, Consumer<Finding> findings) {
+            Property property = context.getProperty();
+            if (property.getGetter() == null) {
+                property.getSetters().forEach(setter ->
+                    findings.accept(new Finding(context.getPropertyName(), setter)));
+            }
+        }
+    }
+
+    /**
+     * Reports properties whose setters accept types other than the type of the getter.
+     * Properties where one of the setters matches the getter type are reported separately
+     * from the ones where none of them do.
+     */
+    private static class InconsistentSetterTypes implements ReportRule {
+        private final boolean withMatchingSetter;
+
+        public InconsistentSetterTypes(boolean withMatchingSetter) {
+            this.withMatchingSetter = withMatchingSetter;
+        }
+
+        @Override
+        public String getId() {
+            return withMatchingSetter ? "additional-setter-types" : "inconsistent-setter-types";
+        }
+
+        @Override
+        public String getTitle() {
+            return withMatchingSetter
+                ? "Properties with consistent getter/setter types, but with additional setter types"
+                : "Properties with inconsistent getter/setter types";
+        }
+
+        @Override
+        public void checkProperty(PropertyContext context, Consumer<Finding> findings) {
+            Property property = context.getProperty();
+            ApiMethod getter = property.getGetter();
+            // Ignore properties without a getter
+            if (getter == null) {
+                return;
+            }
+            ImmutableSet<String> types = property.collectTypes();
+            if (types.size() == 1) {
+                return;
+            }
+            if (property.matchingGetterAndSetterType().isPresent() != withMatchingSetter) {
+                return;
+            }
+            String setterTypes = types.stream()
+                .filter(Predicate.not(getter.returnType()::equals))
+                .map(context::getSimpleName)
+                .map("`%s`"::formatted)
+                .collect(Collectors.joining(", "));
+            findings.accept(new Finding(context.getPropertyName(), getter, "(setter: %s)".formatted(setterTypes)));
+        }
+    }
+
+    private static class PropertyNameSetters implements ReportRule {
+        @Override
+        public String getId() {
+            return "property-name-setter";
+        }
+
+        @Override
+        public String getTitle() {
+            return "Properties with `propertyName()` setters";
+        }
+
+        @Override
+        public void checkProperty(PropertyContext context, Consumer<Finding> findings) {
+            context.getMethodsNamed(context.getPropertyName()).stream()
+                .filter(Predicate.not(ApiMethod::isStatic))
+                .filter(method -> method.getNumberOfParameters() == 1)
+                .filter(method -> {
+                    String parameterType = method.getParameterType(0);
+                    return !parameterType.equals("Lgroovy/lang/Closure")
+                           && !parameterType.equals("Lorg/gradle/api/Action");
+                })
+                .findFirst()
+                .ifPresent(weirdSetter -> findings.accept(new Finding(context.getPropertyName(), weirdSetter)));
+        }
+    }
+
+    private static class FluentSetters implements ReportRule {
+        @Override
+        public String getId() {
+            return "fluent-setter";
+        }
+
+        @Override
+        public String getTitle() {
+            return "Fluent setters";
+        }
+
+        @Override
+        public void checkProperty(PropertyContext context, Consumer<Finding> findings) {
+            context.getProperty().getSetters().stream()
+                .filter(setter -> !setter.returnType().equals(ApiMethod.VOID))
+                .forEach(setter -> findings.accept(new Finding(context.getPropertyName(), setter)));
+        }
+    }
+
+    private static class LazyPropertiesWithNonAbstractGetters implements ReportRule {
+        @Override
+        public String getId() {
+            return "lazy-non-abstract-getter";
+        }
+
+        @Override
+        public String getTitle() {
+            return "Lazy properties with non-abstract getters";
+        }
+
+        @Override
+        public void checkProperty(PropertyContext context, Consumer<Finding> findings) {
+            ApiMethod getter = context.getProperty().getGetter();
+            if (getter == null) {
+                return;
+            }
+            if (context.getType().isInterface()) {
+                return;
+            }
+            if (getter.isAbstract()) {
+                return;
+            }
+            if (context.isLazyType(getter.returnType())) {
+                findings.accept(new Finding(context.getPropertyName(), getter));
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.gradle.research;
+
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+
+/**
+ * The parts of a class file read by {@link ClassFileReader}.
+ * <p>
+ * Class names are in internal form, e.g. {@code org/gradle/api/Project}.
+ *
+ * @param name the name of the class
+ * @param superName the name of the superclass, or {@code null} for {@code java/lang/Object} and modules
+ * @param interfaces the names of the directly implemented interfaces
+ * @param accessFlags the access flags of the class
+ * @param deprecated whether the class is annotated with {@code @Deprecated}
+ * @param methods the methods declared by the class
+ */
+record ClassFile(
+    String name,
+    @Nullable String superName,
+    ImmutableList<String> interfaces,
+    int accessFlags,
+    boolean deprecated,
+    ImmutableList<Method> methods
+) {
+    public boolean isPublic() {
+        return (accessFlags & ClassFileReader.ACC_PUBLIC) != 0;
+    }
+
+    public boolean isInterface() {
+        return (accessFlags & ClassFileReader.ACC_INTERFACE) != 0;
+    }
+
+    /**
+     * @param name the name of the method
+     * @param descriptor the method descriptor, e.g. {@code (Ljava/lang/String;)V}
+     * @param accessFlags the access flags of the method
+     * @param deprecated whether the method is annotated with {@code @Deprecated}
+     */
+    record Method(String name, String descriptor, int accessFlags, boolean deprecated) {
+        public boolean isPublic() {
+            return (accessFlags & ClassFileReader.ACC_PUBLIC) != 0;
+        }
+
+        public boolean isStatic() {
+            return (accessFlags & ClassFileReader.ACC_STATIC) != 0;
+        }
+
+        public boolean isAbstract() {
+            return (accessFlags & ClassFileReader.ACC_ABSTRACT) != 0;
+        }
+
+        /**
+         * Returns the return type in descriptor form, e.g. {@code Lorg/gradle/api/provider/Provider;} or {@code V}.
+         */
+        public String returnTypeDescriptor() {
+            return descriptor.substring(descriptor.lastIndexOf(')') + 1);
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package org.gradle.research;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.ibm.wala.types.TypeName;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Extracts an {@link ApiModel} by reading class headers and method signatures directly from the class files,
+ * without building a class hierarchy or parsing method bodies.
+ * <p>
+ * Mirrors what the WALA backend sees: a class is only part of the model if its superclass chain can be resolved
+ * on the classpath or in the JDK, and lazy types are resolved through the supertypes on the classpath.
+ * JDK classes are never subtypes of the lazy root types, so they are not part of the lazy type index.
+ */
+class ClassFileApiModelExtractor implements ApiModelExtractor {
+    private static final String OBJECT_CLASS = "java/lang/Object";
+
+    private final ApiTypeFilter apiTypeFilter;
+    private final boolean ignoreDeprecated;
+    private final boolean inheritedProperties;
+    private final int threads;
+    private final ImmutableList<String> lazyRootTypes;
+    @Nullable
+    private final ClassFileCache classFileCache;
+    private final Profiler profiler;
+
+    public ClassFileApiModelExtractor(ApiTypeFilter apiTypeFilter, AnalysisOptions options, Profiler profiler) {
+        this(apiTypeFilter, options, null, profiler);
+    }
+
+    /**
+     * @param classFileCache the class files to reuse from a previous extraction, or {@code null} to read all class files
+     */
+    public ClassFileApiModelExtractor(ApiTypeFilter apiTypeFilter, AnalysisOptions options, @Nullable ClassFileCache classFileCache, Profiler profiler) {
+        this.apiTypeFilter = apiTypeFilter;
+        this.ignoreDeprecated = options.isIgnoreDeprecated();
+        this.inheritedProperties = options.isInherited();
+        this.threads = options.getThreads();
+        this.lazyRootTypes = ApiModelExtractor.lazyRootTypes(options);
+        this.classFileCache = classFileCache;
+        this.profiler = profiler;
+    }
+
+    @Override
+    public ApiModel extract(List<File> classpath) throws IOException {
+        ClasspathClasses classes;
+        try (var ignored = profiler.start("Scan classpath")) {
+            classes = ClasspathClasses.scan(classpath);
+        }
+        try (classes) {
+            profiler.count("classes", classes.getClassNames().size());
+            Hierarchy hierarchy = new Hierarchy(classes, classFileCache);
+
+            ImmutableList<ApiType> types;
+            try (var ignored = profiler.start("Type extraction"); ForkJoinPool pool = ApiModelExtractor.createExtractionPool(threads)) {
+                types = ApiModelExtractor.extractTypes(hierarchy.classNames, className -> extractTypeIfIncluded(className, hierarchy), pool);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            profiler.count("types", types.size());
+            profiler.count("methods", types.stream().mapToInt(type -> type.methods().size()).sum());
+
+            try (var ignored = profiler.start("Lazy types")) {
+                LazyTypeIndex lazyTypeIndex = createLazyTypeIndex(hierarchy);
+                ApiModel model = new ApiModel(types, findLazyTypes(hierarchy, lazyTypeIndex, ApiModelExtractor.collectGetterTypes(types, inheritedProperties)), inheritedProperties);
+                profiler.count("lazySubtypes", lazyTypeIndex.getLazyCount());
+                return model;
+            }
+        }
+    }
+
+    /**
+     * Extracts one model per package and hands it to the consumer before extracting the next one,
+     * so that only the model of a single package is held in memory at a time.
+     * <p>
+     * Packages are visited in the order of {@link ApiModel#TYPE_ORDER}; lazy types are still resolved against the whole classpath.
+     */
+    public void extractByPackage(List<File> classpath, ApiModelConsumer consumer) throws IOException {
+        ClasspathClasses classes;
+        try (var ignored = profiler.start("Scan classpath")) {
+            classes = ClasspathClasses.scan(classpath);
+        }
+        try (classes; ForkJoinPool pool = ApiModelExtractor.createExtractionPool(threads)) {
+            profiler.count("classes", classes.getClassNames().size());
+            Hierarchy hierarchy = new Hierarchy(classes, classFileCache);
+            LazyTypeIndex lazyTypeIndex = createLazyTypeIndex(hierarchy);
+
+            // Only the class names are grouped up front, class files are read when their package is extracted
+            SortedMap<String, List<String>> classNamesByPackage = new TreeMap<>();
+            for (String className : hierarchy.classNames) {
+                String packageName = className.substring(0, Math.max(className.lastIndexOf('/'), 0));
+                classNamesByPackage.computeIfAbsent(packageName, __ -> new ArrayList<>()).add(className);
+            }
+
+            for (List<String> classNames : classNamesByPackage.values()) {
+                ImmutableList<ApiType> types;
+                try {
+                    types = ApiModelExtractor.extractTypes(classNames, className -> extractTypeIfIncluded(className, hierarchy), pool);
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                if (types.isEmpty()) {
+                    continue;
+                }
+                profiler.count("packages", 1);
+                profiler.count("types", types.size());
+                profiler.count("methods", types.stream().mapToInt(type -> type.methods().size()).sum());
+                // Supertypes may be in other packages, so properties are never inherited here
+                consumer.accept(new ApiModel(types, findLazyTypes(hierarchy, lazyTypeIndex, ApiModelExtractor.collectGetterTypes(types, false)), false));
+            }
+            profiler.count("lazySubtypes", lazyTypeIndex.getLazyCount());
+        }
+    }
+
+    private Optional<ApiType> extractTypeIfIncluded(String className, Hierarchy hierarchy) {
+        // Skip anonymous inner classes
+        if (className.substring(className.lastIndexOf('/') + 1).contains("$")) {
+            return Optional.empty();
+        }
+        // Skip internal APIs
+        if (!apiTypeFilter.includeTypeName(TypeName.findOrCreate("L" + className))) {
+            return Optional.empty();
+        }
+        ClassFile classFile = hierarchy.read(className);
+        // Skip non-public types
+        if (!classFile.isPublic()) {
+            return Optional.empty();
+        }
+        // Skip deprecated types
+        if (ignoreDeprecated && classFile.deprecated()) {
+            return Optional.empty();
+        }
+        // Skip types that would not make it into a class hierarchy
+        if (!hierarchy.isResolvable(className)) {
+            return Optional.empty();
+        }
+        return Optional.of(extractType(classFile));
+    }
+
+    private ApiType extractType(ClassFile classFile) {
+        String typeName = "L" + classFile.name();
+        ImmutableList.Builder<ApiMethod> methods = ImmutableList.builder();
+        for (ClassFile.Method method : classFile.methods()) {
+            if (!method.isPublic()) {
+                continue;
+            }
+            // Skip deprecated methods
+            if (ignoreDeprecated && method.deprecated()) {
+                continue;
+            }
+            methods.add(toApiMethod(typeName, method));
+        }
+        ImmutableList.Builder<String> supertypes = ImmutableList.builder();
+        if (classFile.superName() != null) {
+            supertypes.add("L" + classFile.superName());
+        }
+        classFile.interfaces().forEach(supertype -> supertypes.add("L" + supertype));
+        return new ApiType(typeName, classFile.isInterface(), supertypes.build(), methods.build());
+    }
+
+    private static ApiMethod toApiMethod(String declaringType, ClassFile.Method method) {
+        String descriptor = method.descriptor();
+        ImmutableList.Builder<String> parameterTypes = ImmutableList.builder();
+        int index = 1;
+        while (descriptor.charAt(index) != ')') {
+            int end = endOfFieldDescriptor(descriptor, index);
+            parameterTypes.add(toTypeName(descriptor.substring(index, end)));
+            index = end;
+        }
+        return new ApiMethod(
+            declaringType,
+            method.name(),
+            parameterTypes.build(),
+            toTypeName(method.returnTypeDescriptor()),
+            method.isStatic(),
+            method.isAbstract()
+        );
+    }
+
+    private static int endOfFieldDescriptor(String descriptor, int start) {
+        int index = start;
+        while (descriptor.charAt(index) == '[') {
+            index++;
+        }
+        if (descriptor.charAt(index) == 'L') {
+            index = descriptor.indexOf(';', index);
+        }
+        return index + 1;
+    }
+
+    /**
+     * Converts a field descriptor to the type name format used by the model, e.g. {@code Ljava/lang/String;} to {@code Ljava/lang/String}.
+     */
+    private static String toTypeName(String descriptor) {
+        return descriptor.endsWith(";") ? descriptor.substring(0, descriptor.length() - 1) : descriptor;
+    }
+
+    private LazyTypeIndex createLazyTypeIndex(Hierarchy hierarchy) {
+        int[] rootIds = lazyRootTypes.stream()
+            .map(rootType -> rootType.substring(1))
+            .filter(hierarchy::isResolvable)
+            .mapToInt(hierarchy::classId)
+            .filter(classId -> classId != -1)
+            .toArray();
+        return new LazyTypeIndex(rootIds, hierarchy::directSupertypes);
+    }
+
+    private static ImmutableSet<String> findLazyTypes(Hierarchy hierarchy, LazyTypeIndex index, Collection<String> candidateTypes) {
+        return candidateTypes.stream()
+            .filter(candidateType -> {
+                if (!candidateType.startsWith("L")) {
+                    return false;
+                }
+                String className = candidateType.substring(1);
+                int classId = hierarchy.classId(className);
+                return classId != -1 && hierarchy.isResolvable(className) && index.isLazy(classId);
+            })
+            .collect(ImmutableSet.toImmutableSet());
+    }
+
+    /**
+     * Answers the questions about supertypes that the WALA class hierarchy would answer.
+     */
+    private static class Hierarchy {
+        private final ClasspathClasses classes;
+        @Nullable
+        private final ClassFileCache classFileCache;
+        // The position of a class in this list is its ID in the lazy type index
+        private final List<String> classNames;
+        private final Map<String, Integer> classIds;
+        private final Map<String, Boolean> resolvable = new ConcurrentHashMap<>();
+
+        public Hierarchy(ClasspathClasses classes, @Nullable ClassFileCache classFileCache) {
+            this.classes = classes;
+            this.classFileCache = classFileCache;
+            this.classNames = new ArrayList<>(classes.getClassNames());
+            this.classIds = new HashMap<>(classNames.size());
+            for (int i = 0; i < classNames.size(); i++) {
+                classIds.put(classNames.get(i), i);
+            }
+        }
+
+        public ClassFile read(String className) {
+            return classFileCache == null ? classes.read(className) : classFileCache.read(classes, className);
+        }
+
+        /**
+         * Returns the ID of a class on the classpath, or -1 for other classes.
+         */
+        public int classId(String className) {
+            return classIds.getOrDefault(className, -1);
+        }
+
+        public int[] directSupertypes(int classId) {
+            ClassFile classFile = read(classNames.get(classId));
+            return Stream.concat(Stream.ofNullable(classFile.superName()), classFile.interfaces().stream())
+                .mapToInt(this::classId)
+                .filter(supertypeId -> supertypeId != -1)
+                .toArray();
+        }
+
+        /**
+         * Returns whether the superclass chain of the class can be resolved, which is required for a class to be part of a class hierarchy.
+         */
+        public boolean isResolvable(String className) {
+            Boolean cached = resolvable.get(className);
+            if (cached != null) {
+                return cached;
+            }
+            boolean result;
+            if (className.equals(OBJECT_CLASS)) {
+                result = true;
+            } else if (classes.contains(className)) {
+                // Classes without a superclass extend Object
+                String superName = read(className).superName();
+                result = superName == null || isResolvable(superName);
+            } else {
+                // JDK classes are assumed to be complete
+                result = JdkClasses.contains(className);
+            }
+            resolvable.put(className, result);
+            return result;
+        }
+    }
+
+    /**
+     * Looks up classes in the modules of the running JDK, which WALA loads as the primordial classes.
+     */
+    private static class JdkClasses {
+        private static final FileSystem JRT = FileSystems.getFileSystem(URI.create("jrt:/"));
+        // The JDK does not change while running, so lookups are kept for later extractions, e.g. in watch mode
+        private static final Map<String, Boolean> CONTAINED = new ConcurrentHashMap<>();
+
+        public static boolean contains(String className) {
+            Boolean cached = CONTAINED.get(className);
+            if (cached == null) {
+                cached = lookUp(className);
+                CONTAINED.put(className, cached);
+            }
+            return cached;
+        }
+
+        private static boolean lookUp(String className) {
+            int lastSlash = className.lastIndexOf('/');
+            if (lastSlash == -1) {
+                return false;
+            }
+            // The packages directory links each package to the modules containing it
+            Path packageDirectory = JRT.getPath("/packages", className.substring(0, lastSlash).replace('/', '.'));
+            if (!Files.isDirectory(packageDirectory)) {
+                return false;
+            }
+            try (Stream<Path> modules = Files.list(packageDirectory)) {
+                return modules.anyMatch(module -> Files.isRegularFile(JRT.getPath("/modules", module.getFileName().toString(), className + ".class")));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.gradle.research;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The parsed class files of a classpath, kept between the extractions of watch mode so that only the classes
+ * that changed are read again. Everything derived from them, like the supertype relations for the lazy type check,
+ * is recomputed from the cached class files on each extraction.
+ */
+class ClassFileCache {
+    private final Map<String, ClassFile> classFiles = new ConcurrentHashMap<>();
+
+    public ClassFile read(ClasspathClasses classes, String className) {
+        // Not computeIfAbsent, so that reading a class does not block other threads
+        ClassFile classFile = classFiles.get(className);
+        if (classFile == null) {
+            classFile = classes.read(className);
+            classFiles.put(className, classFile);
+        }
+        return classFile;
+    }
+
+    public void invalidate(Collection<String> classNames) {
+        classFiles.keySet().removeAll(classNames);
+    }
+
+    public void invalidateAll() {
+        classFiles.clear();
+    }
+}
@@ -0,0 +1,202 @@
+package org.gradle.research;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A minimal class file parser that reads the constant pool, the class header, the method signatures and
+ * the {@code @Deprecated} annotations, skipping method bodies and all other attributes.
+ */
+final class ClassFileReader {
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_INTERFACE = 0x0200;
+    public static final int ACC_ABSTRACT = 0x0400;
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final String DEPRECATED_DESCRIPTOR = "Ljava/lang/Deprecated;";
+
+    private final ByteBuffer buffer;
+    private final int[] offsets;
+    private final String[] utf8Cache;
+
+    private ClassFileReader(byte[] bytes) {
+        this.buffer = ByteBuffer.wrap(bytes);
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a class file");
+        }
+        // Skip minor and major version
+        buffer.position(buffer.position() + 4);
+        int constantPoolCount = buffer.getShort() & 0xFFFF;
+        this.offsets = new int[constantPoolCount];
+        this.utf8Cache = new String[constantPoolCount];
+        for (int i = 1; i < constantPoolCount; i++) {
+            offsets[i] = buffer.position();
+            int tag = buffer.get();
+            switch (tag) {
+                case 1 -> {
+                    // The length has to be read before the position is taken
+                    int length = buffer.getShort() & 0xFFFF;
+                    buffer.position(buffer.position() + length);
+                }
+                case 7, 8, 16, 19, 20 -> buffer.position(buffer.position() + 2);
+                case 15 -> buffer.position(buffer.position() + 3);
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> buffer.position(buffer.position() + 4);
+                case 5, 6 -> {
+                    buffer.position(buffer.position() + 8);
+                    // Long and double constants take up two slots
+                    i++;
+                }
+                default -> throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+            }
+        }
+    }
+
+    /**
+     * Parses the given class file.
+     *
+     * @throws IllegalArgumentException if the bytes are not a valid class file
+     */
+    public static ClassFile read(byte[] bytes) {
+        try {
+            return new ClassFileReader(bytes).readClass();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated class file", e);
+        }
+    }
+
+    private ClassFile readClass() {
+        int accessFlags = buffer.getShort() & 0xFFFF;
+        String name = className(buffer.getShort() & 0xFFFF);
+        int superIndex = buffer.getShort() & 0xFFFF;
+        String superName = superIndex == 0 ? null : className(superIndex);
+        int interfaceCount = buffer.getShort() & 0xFFFF;
+        ImmutableList.Builder<String> interfaces = ImmutableList.builderWithExpectedSize(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces.add(className(buffer.getShort() & 0xFFFF));
+        }
+
+        int fieldCount = buffer.getShort() & 0xFFFF;
+        for (int i = 0; i < fieldCount; i++) {
+            buffer.position(buffer.position() + 6);
+            skipAttributes();
+        }
+
+        int methodCount = buffer.getShort() & 0xFFFF;
+        ImmutableList.Builder<ClassFile.Method> methods = ImmutableList.builderWithExpectedSize(methodCount);
+        for (int i = 0; i < methodCount; i++) {
+            int methodAccessFlags = buffer.getShort() & 0xFFFF;
+            String methodName = utf8(buffer.getShort() & 0xFFFF);
+            String descriptor = utf8(buffer.getShort() & 0xFFFF);
+            boolean deprecated = readDeprecatedAnnotation();
+            methods.add(new ClassFile.Method(methodName, descriptor, methodAccessFlags, deprecated));
+        }
+
+        boolean deprecated = readDeprecatedAnnotation();
+        return new ClassFile(name, superName, interfaces.build(), accessFlags, deprecated, methods.build());
+    }
+
+    /**
+     * Reads an attribute table, returning whether it contains a {@code @Deprecated} annotation.
+     * Method bodies and all other attributes are skipped without being parsed.
+     */
+    private boolean readDeprecatedAnnotation() {
+        boolean deprecated = false;
+        int attributeCount = buffer.getShort() & 0xFFFF;
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = utf8(buffer.getShort() & 0xFFFF);
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+            if (attributeName.equals("RuntimeVisibleAnnotations") || attributeName.equals("RuntimeInvisibleAnnotations")) {
+                int annotationCount = buffer.getShort() & 0xFFFF;
+                for (int j = 0; j < annotationCount; j++) {
+                    if (utf8(buffer.getShort() & 0xFFFF).equals(DEPRECATED_DESCRIPTOR)) {
+                        deprecated = true;
+                        break;
+                    }
+                    skipElementValuePairs();
+                }
+            }
+            buffer.position(end);
+        }
+        return deprecated;
+    }
+
+    private void skipAttributes() {
+        int attributeCount = buffer.getShort() & 0xFFFF;
+        for (int i = 0; i < attributeCount; i++) {
+            buffer.position(buffer.position() + 2);
+            int length = buffer.getInt();
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    private void skipElementValuePairs() {
+        int pairCount = buffer.getShort() & 0xFFFF;
+        for (int i = 0; i < pairCount; i++) {
+            buffer.position(buffer.position() + 2);
+            skipElementValue();
+        }
+    }
+
+    private void skipElementValue() {
+        int tag = buffer.get();
+        switch (tag) {
+            case 'B', 'C', 'D', 'F', 'I', 'J', 'S', 'Z', 's', 'c' -> buffer.position(buffer.position() + 2);
+            case 'e' -> buffer.position(buffer.position() + 4);
+            case '@' -> {
+                buffer.position(buffer.position() + 2);
+                skipElementValuePairs();
+            }
+            case '[' -> {
+                int valueCount = buffer.getShort() & 0xFFFF;
+                for (int i = 0; i < valueCount; i++) {
+                    skipElementValue();
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown element value tag " + (char) tag);
+        }
+    }
+
+    private String className(int index) {
+        return utf8(buffer.getShort(offsets[index] + 1) & 0xFFFF);
+    }
+
+    private String utf8(int index) {
+        String value = utf8Cache[index];
+        if (value == null) {
+            value = decodeUtf8(offsets[index]);
+            utf8Cache[index] = value;
+        }
+        return value;
+    }
+
+    private String decodeUtf8(int offset) {
+        int length = buffer.getShort(offset + 1) & 0xFFFF;
+        int start = offset + 3;
+        byte[] array = buffer.array();
+        boolean ascii = true;
+        for (int i = start; i < start + length; i++) {
+            if (array[i] <= 0) {
+                ascii = false;
+                break;
+            }
+        }
+        if (ascii) {
+            return new String(array, start, length, StandardCharsets.ISO_8859_1);
+        }
+        // Class files use modified UTF-8, which is what DataInput.readUTF() decodes
+        try {
+            return new DataInputStream(new ByteArrayInputStream(array, offset + 1, length + 2)).readUTF();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
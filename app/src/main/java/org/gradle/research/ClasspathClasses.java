@@ -0,0 +1,117 @@
+package org.gradle.research;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * The class files on a classpath, read on demand. The JARs are kept open until this is closed.
+ * <p>
+ * When a class is present in multiple entries, the first one is used.
+ * Once scanned, classes can be read from multiple threads.
+ */
+class ClasspathClasses implements AutoCloseable {
+    private final Map<String, ClassEntry> classes = new HashMap<>();
+    private final List<JarFile> jars = new ArrayList<>();
+
+    private ClasspathClasses() {
+    }
+
+    public static ClasspathClasses scan(List<File> classpath) throws IOException {
+        ClasspathClasses classes = new ClasspathClasses();
+        try {
+            for (File classpathEntry : classpath) {
+                classes.scan(classpathEntry.toPath());
+            }
+            return classes;
+        } catch (Throwable t) {
+            try {
+                classes.close();
+            } catch (IOException e) {
+                t.addSuppressed(e);
+            }
+            throw t;
+        }
+    }
+
+    /**
+     * Returns the names of the classes in internal form, e.g. {@code org/gradle/api/Project}.
+     */
+    public Set<String> getClassNames() {
+        return classes.keySet();
+    }
+
+    public boolean contains(String className) {
+        return classes.containsKey(className);
+    }
+
+    public ClassFile read(String className) {
+        ClassEntry entry = classes.get(className);
+        if (entry == null) {
+            throw new IllegalArgumentException("Class not found on classpath: " + className);
+        }
+        try {
+            return ClassFileReader.read(entry.readBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void scan(Path classpathEntry) throws IOException {
+        if (Files.isRegularFile(classpathEntry)) {
+            JarFile jar = new JarFile(classpathEntry.toFile(), false);
+            jars.add(jar);
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (isClassFile(name)) {
+                    classes.putIfAbsent(name.substring(0, name.length() - ".class".length()), () -> {
+                        try (InputStream input = jar.getInputStream(entry)) {
+                            return input.readAllBytes();
+                        }
+                    });
+                }
+            }
+        } else if (Files.isDirectory(classpathEntry)) {
+            try (Stream<Path> files = Files.walk(classpathEntry)) {
+                files.filter(Files::isRegularFile).forEach(file -> {
+                    String name = classpathEntry.relativize(file).toString().replace(File.separatorChar, '/');
+                    if (isClassFile(name)) {
+                        classes.putIfAbsent(name.substring(0, name.length() - ".class".length()), () -> Files.readAllBytes(file));
+                    }
+                });
+            }
+        }
+    }
+
+    private static boolean isClassFile(String name) {
+        return name.endsWith(".class")
+               && !name.startsWith("META-INF/")
+               && !name.endsWith("module-info.class")
+               && !name.endsWith("package-info.class");
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (JarFile jar : jars) {
+            jar.close();
+        }
+    }
+
+    private interface ClassEntry {
+        byte[] readBytes() throws IOException;
+    }
+}
@@ -0,0 +1,47 @@
+package org.gradle.research;
+
+import com.google.common.io.Closer;
+import com.ibm.wala.classLoader.BinaryDirectoryTreeModule;
+import com.ibm.wala.classLoader.JarFileModule;
+import com.ibm.wala.classLoader.Module;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.jar.JarFile;
+import java.util.zip.ZipException;
+
+/**
+ * Provides the WALA {@link Module}s for classpath entries.
+ */
+interface ClasspathModules {
+    /**
+     * Opens a new memory-mapped module for every request.
+     */
+    ClasspathModules DEFAULT = (classpathEntry, closer) -> openModule(classpathEntry, closer, true);
+
+    /**
+     * Opens a new module for every request, reading JARs via {@link JarFile}.
+     */
+    ClasspathModules JAR_FILE = (classpathEntry, closer) -> openModule(classpathEntry, closer, false);
+
+    /**
+     * Opens the module for the given classpath entry.
+     * Modules that need to be closed once the analysis has finished are registered with the given closer.
+     */
+    Module open(File classpathEntry, Closer closer) throws IOException;
+
+    static Module openModule(File classpathEntry, Closer closer, boolean mapped) throws IOException {
+        if (!Files.isRegularFile(classpathEntry.toPath())) {
+            return new BinaryDirectoryTreeModule(classpathEntry);
+        }
+        if (mapped) {
+            try {
+                return closer.register(MappedJarModule.open(classpathEntry));
+            } catch (ZipException e) {
+                // Fall back to JarFile for archives the mapped module cannot read, like ZIP64 archives
+            }
+        }
+        return new JarFileModule(closer.register(new JarFile(classpathEntry, false)));
+    }
+}
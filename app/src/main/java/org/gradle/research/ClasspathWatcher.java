@@ -0,0 +1,142 @@
+package org.gradle.research;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Watches the directory entries of a classpath for changed class files. JAR entries are not watched.
+ * <p>
+ * A {@link WatchService} only watches a single directory, so every directory below an entry is registered,
+ * including directories created later.
+ */
+class ClasspathWatcher implements Closeable {
+    /**
+     * How long no more changes must be seen before the changes are considered complete, so that a compilation writing
+     * many class files results in a single analysis.
+     */
+    private static final long QUIET_PERIOD_MILLIS = 50;
+
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    private final WatchService watchService;
+    private final Map<WatchKey, WatchedDirectory> directories = new HashMap<>();
+
+    private ClasspathWatcher(WatchService watchService) {
+        this.watchService = watchService;
+    }
+
+    public static ClasspathWatcher watch(List<File> classpath) throws IOException {
+        ClasspathWatcher watcher = new ClasspathWatcher(FileSystems.getDefault().newWatchService());
+        try {
+            for (File classpathEntry : classpath) {
+                if (classpathEntry.isDirectory()) {
+                    watcher.registerTree(classpathEntry.toPath(), classpathEntry.toPath());
+                }
+            }
+            return watcher;
+        } catch (IOException e) {
+            watcher.close();
+            throw e;
+        }
+    }
+
+    public boolean isWatching() {
+        return !directories.isEmpty();
+    }
+
+    /**
+     * Blocks until class files changed, and returns the names of the changed classes in internal form,
+     * or nothing when changes may have been missed and all classes have to be considered changed.
+     */
+    public Optional<Set<String>> awaitChanges() throws IOException, InterruptedException {
+        Set<String> changedClasses = new HashSet<>();
+        boolean changesMissed = false;
+        while (changedClasses.isEmpty() && !changesMissed) {
+            WatchKey key = watchService.take();
+            // Keep collecting events until the compiler has been quiet for a while
+            while (key != null) {
+                changesMissed |= processEvents(key, changedClasses);
+                key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+        return changesMissed ? Optional.empty() : Optional.of(changedClasses);
+    }
+
+    /**
+     * Adds the classes changed according to the events of the key, and returns whether changes may have been missed.
+     */
+    private boolean processEvents(WatchKey key, Set<String> changedClasses) throws IOException {
+        WatchedDirectory watched = directories.get(key);
+        boolean changesMissed = false;
+        if (watched == null) {
+            key.cancel();
+            return false;
+        }
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changesMissed = true;
+                continue;
+            }
+            Path path = watched.directory().resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                registerTree(watched.root(), path);
+                // Files may have been created before the directory was registered
+                try (Stream<Path> files = Files.walk(path)) {
+                    files.filter(Files::isRegularFile).forEach(file -> addClassName(watched.root(), file, changedClasses));
+                }
+            } else if (path.getFileName().toString().endsWith(CLASS_FILE_SUFFIX)) {
+                addClassName(watched.root(), path, changedClasses);
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                // Could have been a directory, whose deleted classes are unknown
+                changesMissed = true;
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+        return changesMissed;
+    }
+
+    private void registerTree(Path root, Path directory) throws IOException {
+        try (Stream<Path> subdirectories = Files.walk(directory)) {
+            for (Path subdirectory : subdirectories.filter(Files::isDirectory).toList()) {
+                WatchKey key = subdirectory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+                directories.put(key, new WatchedDirectory(root, subdirectory));
+            }
+        }
+    }
+
+    private static void addClassName(Path root, Path file, Set<String> classNames) {
+        String name = root.relativize(file).toString().replace(File.separatorChar, '/');
+        if (name.endsWith(CLASS_FILE_SUFFIX)) {
+            classNames.add(name.substring(0, name.length() - CLASS_FILE_SUFFIX.length()));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private record WatchedDirectory(Path root, Path directory) {
+    }
+}
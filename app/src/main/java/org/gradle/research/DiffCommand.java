@@ -0,0 +1,225 @@
+package org.gradle.research;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multiset;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * Reports the findings that were added or removed between two versions of an API.
+ * <p>
+ * The API models of both versions are extracted in full, which is where most of the time goes.
+ * The findings for a type only depend on its public methods and on which of their return types are lazy,
+ * so the types are fingerprinted by these, which tells the changed types apart for the summary and lets
+ * the report leave out the findings of unchanged types, as they would be the same on both sides.
+ */
+@Command(
+    name = "diff",
+    description = {
+        "Generates a Markdown report of the findings added and removed between a baseline and a current classpath.",
+        "The API models of both classpaths are extracted in full; with --cache-dir, a model analyzed before is loaded from the cache instead."
+    })
+public class DiffCommand implements Callable<Integer> {
+    /**
+     * The added and removed findings are listed under headings, which only Markdown has.
+     */
+    private static final ReportFormat FORMAT = ReportFormat.MARKDOWN;
+
+    @Option(
+        names = "--baseline-classpath",
+        required = true,
+        description = "JAR or directory of the baseline version")
+    private List<File> baselineClasspath;
+
+    @Option(
+        names = {"--classpath", "--jar"},
+        required = true,
+        description = "JAR or directory of the current version")
+    private List<File> classpath;
+
+    @Option(
+        names = "--output",
+        required = true,
+        description = "Output file for the report")
+    private File output;
+
+    @Option(
+        names = "--title",
+        description = "Title of the report",
+        defaultValue = "Public API Diff")
+    private String title;
+
+    @Mixin
+    private AnalysisOptions analysisOptions;
+
+    @Override
+    public Integer call() throws Exception {
+        // Both class hierarchies are built in this JVM, so read the JDK class files only once
+        AnalysisEnvironment environment = new AnalysisEnvironment(new SharedJdkClasses(), ClasspathModules.DEFAULT);
+        Profiler profiler = new Profiler();
+        ApiModel baseline = new ApiModelLoader(baselineClasspath, analysisOptions, environment, profiler).load();
+        ApiModel current = new ApiModelLoader(classpath, analysisOptions, environment, profiler).load();
+
+        //noinspection ResultOfMethodCallIgnored
+        output.getAbsoluteFile().getParentFile().mkdirs();
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(output.toPath()))) {
+            writeDiff(baseline, current, writer);
+        }
+        System.out.println("Diff generated at " + output.getAbsolutePath());
+        return 0;
+    }
+
+    private void writeDiff(ApiModel baseline, ApiModel current, PrintWriter writer) throws IOException {
+        Map<String, Long> baselineFingerprints = new HashMap<>(baseline.getTypeCount());
+        for (int typeId = 0; typeId < baseline.getTypeCount(); typeId++) {
+            baselineFingerprints.put(baseline.getType(typeId).name(), fingerprint(baseline, typeId));
+        }
+        Map<String, Long> currentFingerprints = new HashMap<>(current.getTypeCount());
+        for (int typeId = 0; typeId < current.getTypeCount(); typeId++) {
+            currentFingerprints.put(current.getType(typeId).name(), fingerprint(current, typeId));
+        }
+
+        ImmutableList<ReportRule> rules = ReportGenerator.loadRules();
+        ReportEncoder encoder = ReportEncoder.create(FORMAT, rules);
+        List<List<Finding>> baselineFindings = checkChangedTypes(baseline, baselineFingerprints, currentFingerprints, rules, encoder.getRenderer());
+        List<List<Finding>> currentFindings = checkChangedTypes(current, currentFingerprints, baselineFingerprints, rules, encoder.getRenderer());
+
+        int addedTypes = 0;
+        int changedTypes = 0;
+        for (Map.Entry<String, Long> type : currentFingerprints.entrySet()) {
+            Long baselineFingerprint = baselineFingerprints.get(type.getKey());
+            if (baselineFingerprint == null) {
+                addedTypes++;
+            } else if (!baselineFingerprint.equals(type.getValue())) {
+                changedTypes++;
+            }
+        }
+        int removedTypes = (int) baselineFingerprints.keySet().stream()
+            .filter(typeName -> !currentFingerprints.containsKey(typeName))
+            .count();
+
+        writer.println("# " + title);
+        writer.println();
+        writer.println("## Summary");
+        writer.println();
+        writer.println("- Baseline types: " + baseline.getTypeCount());
+        writer.println("- Current types: " + current.getTypeCount());
+        writer.println("- Added types: " + addedTypes);
+        writer.println("- Removed types: " + removedTypes);
+        writer.println("- Changed types: " + changedTypes);
+        writer.println();
+
+        for (int i = 0; i < rules.size(); i++) {
+            List<Finding> added = subtract(currentFindings.get(i), baselineFindings.get(i));
+            List<Finding> removed = subtract(baselineFindings.get(i), currentFindings.get(i));
+            writer.println("## " + rules.get(i).getTitle());
+            writer.println();
+            if (added.isEmpty() && removed.isEmpty()) {
+                writer.println("No changes.");
+                writer.println();
+                continue;
+            }
+            writeFindings(writer, encoder, i, "Added", added);
+            writeFindings(writer, encoder, i, "Removed", removed);
+        }
+    }
+
+    /**
+     * Applies the rules to the types of the model whose fingerprint is not the same in the other model, collecting the findings per rule in model order.
+     */
+    private static List<List<Finding>> checkChangedTypes(ApiModel model, Map<String, Long> fingerprints, Map<String, Long> otherFingerprints, ImmutableList<ReportRule> rules, SignatureRenderer renderer) {
+        List<List<Finding>> findingsPerRule = new ArrayList<>(rules.size());
+        List<Consumer<Finding>> findingConsumers = new ArrayList<>(rules.size());
+        for (int i = 0; i < rules.size(); i++) {
+            List<Finding> findings = new ArrayList<>();
+            findingsPerRule.add(findings);
+            findingConsumers.add(ReportGenerator.reportOnce(model, findings::add));
+        }
+        for (int typeId = 0; typeId < model.getTypeCount(); typeId++) {
+            String typeName = model.getType(typeId).name();
+            if (!fingerprints.get(typeName).equals(otherFingerprints.get(typeName))) {
+                ReportGenerator.checkType(model, typeId, rules, findingConsumers, renderer, null);
+            }
+        }
+        return findingsPerRule;
+    }
+
+    /**
+     * Returns the findings that are not matched by a finding on the other side, keeping their order.
+     */
+    private static List<Finding> subtract(List<Finding> findings, List<Finding> otherFindings) {
+        Multiset<Finding> unmatched = HashMultiset.create(otherFindings);
+        List<Finding> result = new ArrayList<>();
+        for (Finding finding : findings) {
+            if (!unmatched.remove(finding)) {
+                result.add(finding);
+            }
+        }
+        return result;
+    }
+
+    private static void writeFindings(PrintWriter writer, ReportEncoder encoder, int ruleIndex, String heading, List<Finding> findings) throws IOException {
+        if (findings.isEmpty()) {
+            return;
+        }
+        writer.println("### " + heading);
+        writer.println();
+        for (Finding finding : findings) {
+            encoder.encodeFinding(writer, ruleIndex, finding);
+        }
+        writer.println();
+    }
+
+    /**
+     * Hashes everything the rules look at for a type: whether it is an interface, its methods together with whether their return types are lazy,
+     * and the methods of its properties.
+     */
+    private static long fingerprint(ApiModel model, int typeId) {
+        Hasher hasher = Hashing.farmHashFingerprint64().newHasher();
+        hasher.putBoolean(model.getType(typeId).isInterface());
+        for (ApiMethod method : model.getMethods(typeId)) {
+            putMethod(hasher, method);
+            hasher.putBoolean(model.isLazyType(method.returnType()));
+        }
+        // With inherited properties, the properties also depend on the property methods of the supertypes
+        for (int propertyId = model.getFirstPropertyId(typeId); propertyId < model.getEndPropertyId(typeId); propertyId++) {
+            hasher.putString(model.getPropertyName(propertyId), StandardCharsets.UTF_8).putByte((byte) 0);
+            Property property = model.getProperty(propertyId);
+            if (property.getGetter() != null) {
+                putMethod(hasher, property.getGetter());
+                hasher.putBoolean(model.isLazyType(property.getGetter().returnType()));
+            }
+            hasher.putInt(property.getSetters().size());
+            property.getSetters().forEach(setter -> putMethod(hasher, setter));
+        }
+        return hasher.hash().asLong();
+    }
+
+    private static void putMethod(Hasher hasher, ApiMethod method) {
+        hasher.putString(method.declaringType(), StandardCharsets.UTF_8).putByte((byte) 0);
+        hasher.putString(method.name(), StandardCharsets.UTF_8).putByte((byte) 0);
+        hasher.putInt(method.parameterTypes().size());
+        for (String parameterType : method.parameterTypes()) {
+            hasher.putString(parameterType, StandardCharsets.UTF_8).putByte((byte) 0);
+        }
+        hasher.putString(method.returnType(), StandardCharsets.UTF_8).putByte((byte) 0);
+        hasher.putBoolean(method.isStatic());
+        hasher.putBoolean(method.isAbstract());
+    }
+}
@@ -0,0 +1,15 @@
+package org.gradle.research;
+
+/**
+ * Selects how the API model is extracted from the classpath.
+ */
+public enum ExtractionBackend {
+    /**
+     * Reads class headers and method signatures directly from the class files, skipping method bodies.
+     */
+    FAST,
+    /**
+     * Builds a WALA class hierarchy.
+     */
+    WALA
+}
@@ -0,0 +1,16 @@
+package org.gradle.research;
+
+import javax.annotation.Nullable;
+
+/**
+ * A problematic API element reported by a {@link ReportRule}.
+ *
+ * @param propertyName the name of the property the finding belongs to
+ * @param method the method the finding is reported on
+ * @param detail additional information to print after the method signature, or {@code null}
+ */
+public record Finding(String propertyName, ApiMethod method, @Nullable String detail) {
+    public Finding(String propertyName, ApiMethod method) {
+        this(propertyName, method, null);
+    }
+}
@@ -0,0 +1,211 @@
+package org.gradle.research;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * A filter expression over the methods of an {@link ApiIndex}, e.g. {@code package:org.gradle.api.tasks kind:setter param:Object}.
+ * <p>
+ * The expression is a list of {@code field:value} terms that must all match. Type names are given as simple names like {@code DirectoryProperty}
+ * or {@code String[]}, or as fully qualified names like {@code org.gradle.api.file.DirectoryProperty}.
+ * Terms with posting lists in the index narrow down the candidate methods first; the other terms are checked on the remaining candidates.
+ */
+final class IndexQuery {
+    static final String FIELDS = """
+        package:<name>    declared in the package, or with 'org.gradle.api.*' also in its subpackages
+        type:<type>       declared by the type
+        extends:<type>    declared by a type directly extending or implementing the type
+        name:<name>       has the name
+        returns:<type>    returns the type
+        param:<type>      has a parameter of the type
+        kind:getter       is the getter of a property; 'kind:setter' for setters
+        lazy:true         returns a lazy type, or not with 'lazy:false'
+        static:true       is static, or not with 'static:false'""";
+
+    private static final String SUBPACKAGES_SUFFIX = ".*";
+    private static final String ARRAY_SUFFIX = "[]";
+
+    private final ImmutableList<Term> terms;
+
+    private IndexQuery(ImmutableList<Term> terms) {
+        this.terms = terms;
+    }
+
+    /**
+     * Parses the terms of an expression, throwing an {@link IllegalArgumentException} for unknown fields or values.
+     */
+    public static IndexQuery parse(List<String> expression) {
+        ImmutableList.Builder<Term> terms = ImmutableList.builder();
+        for (String term : expression) {
+            int separator = term.indexOf(':');
+            if (separator <= 0 || separator == term.length() - 1) {
+                throw new IllegalArgumentException("Expected a term like 'field:value', but got '" + term + "'");
+            }
+            String field = term.substring(0, separator);
+            String value = term.substring(separator + 1);
+            switch (field) {
+                case "package", "type", "extends", "name", "returns", "param" -> {
+                }
+                case "kind" -> {
+                    if (!value.equals("getter") && !value.equals("setter")) {
+                        throw new IllegalArgumentException("Expected 'kind:getter' or 'kind:setter', but got '" + term + "'");
+                    }
+                }
+                case "lazy", "static" -> {
+                    if (!value.equals("true") && !value.equals("false")) {
+                        throw new IllegalArgumentException("Expected '" + field + ":true' or '" + field + ":false', but got '" + term + "'");
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown field '" + field + "' in '" + term + "'");
+            }
+            terms.add(new Term(field, value));
+        }
+        return new IndexQuery(terms.build());
+    }
+
+    /**
+     * Returns the IDs of the matching methods in ascending order.
+     */
+    public int[] findMethods(ApiIndex index) {
+        int[] candidates = null;
+        List<IntPredicate> filters = new ArrayList<>();
+        for (Term term : terms) {
+            switch (term.field()) {
+                case "package" -> candidates = intersect(candidates, findMethodsInPackages(index, term.value()));
+                case "returns" -> candidates = intersect(candidates, findPostings(index, index.getMethodsByReturnType(), term.value()));
+                case "param" -> candidates = intersect(candidates, findPostings(index, index.getMethodsByParameterType(), term.value()));
+                case "type" -> {
+                    IntPredicate typeName = typeNameMatcher(index, term.value());
+                    filters.add(methodId -> typeName.test(index.getTypeName(index.getMethodType(methodId))));
+                }
+                case "extends" -> {
+                    IntPredicate typeName = typeNameMatcher(index, term.value());
+                    filters.add(methodId -> index.anySupertype(index.getMethodType(methodId), typeName));
+                }
+                case "name" -> {
+                    int nameId = index.findString(term.value());
+                    filters.add(methodId -> index.getMethodName(methodId) == nameId);
+                }
+                case "kind" -> {
+                    int flag = term.value().equals("getter") ? ApiIndex.METHOD_GETTER : ApiIndex.METHOD_SETTER;
+                    filters.add(methodId -> index.hasMethodFlag(methodId, flag));
+                }
+                case "lazy" -> filters.add(flagMatcher(index, ApiIndex.METHOD_LAZY_RETURN, Boolean.parseBoolean(term.value())));
+                case "static" -> filters.add(flagMatcher(index, ApiIndex.METHOD_STATIC, Boolean.parseBoolean(term.value())));
+                default -> throw new IllegalStateException("Unexpected field " + term.field());
+            }
+        }
+        IntStream methods = candidates == null ? IntStream.range(0, index.getMethodCount()) : IntStream.of(candidates);
+        for (IntPredicate filter : filters) {
+            methods = methods.filter(filter);
+        }
+        return methods.toArray();
+    }
+
+    private static IntPredicate flagMatcher(ApiIndex index, int flag, boolean expected) {
+        return methodId -> index.hasMethodFlag(methodId, flag) == expected;
+    }
+
+    private static int[] findMethodsInPackages(ApiIndex index, String value) {
+        ApiIndex.Postings typesByPackage = index.getTypesByPackage();
+        List<int[]> typeIds = new ArrayList<>();
+        if (value.endsWith(SUBPACKAGES_SUFFIX)) {
+            String packageName = toInternalPackageName(value.substring(0, value.length() - SUBPACKAGES_SUFFIX.length()));
+            for (int i = 0; i < typesByPackage.getKeyCount(); i++) {
+                String candidate = index.getString(typesByPackage.getKey(i));
+                if (candidate.equals(packageName) || candidate.startsWith(packageName + "/")) {
+                    typeIds.add(typesByPackage.getAt(i));
+                }
+            }
+        } else {
+            typeIds.add(typesByPackage.get(index.findString(toInternalPackageName(value))));
+        }
+        // The methods of a type are a range of IDs
+        return typeIds.stream()
+            .flatMapToInt(IntStream::of)
+            .flatMap(typeId -> IntStream.range(index.getFirstMethodId(typeId), index.getEndMethodId(typeId)))
+            .sorted()
+            .toArray();
+    }
+
+    /**
+     * Returns the union of the posting lists whose key matches the type name.
+     */
+    private static int[] findPostings(ApiIndex index, ApiIndex.Postings postings, String typeName) {
+        if (isQualified(typeName)) {
+            return postings.get(index.findString(toInternalTypeName(typeName)));
+        }
+        IntPredicate matcher = typeNameMatcher(index, typeName);
+        List<int[]> matches = new ArrayList<>();
+        for (int i = 0; i < postings.getKeyCount(); i++) {
+            if (matcher.test(postings.getKey(i))) {
+                matches.add(postings.getAt(i));
+            }
+        }
+        return matches.size() == 1
+            ? matches.get(0)
+            : matches.stream().flatMapToInt(IntStream::of).sorted().distinct().toArray();
+    }
+
+    /**
+     * Returns a predicate matching the string IDs of the type names that the given simple or fully qualified name refers to.
+     */
+    private static IntPredicate typeNameMatcher(ApiIndex index, String typeName) {
+        if (isQualified(typeName)) {
+            int typeNameId = index.findString(toInternalTypeName(typeName));
+            return stringId -> stringId == typeNameId;
+        }
+        return stringId -> SignatureRenderer.renderSimpleName(index.getString(stringId)).equals(typeName);
+    }
+
+    private static boolean isQualified(String typeName) {
+        return typeName.indexOf('.') >= 0;
+    }
+
+    private static String toInternalPackageName(String packageName) {
+        return packageName.replace('.', '/');
+    }
+
+    /**
+     * Converts a fully qualified name like {@code java.lang.String[]} to JVM internal form, e.g. {@code [Ljava/lang/String}.
+     */
+    private static String toInternalTypeName(String typeName) {
+        int dimensions = 0;
+        String elementType = typeName;
+        while (elementType.endsWith(ARRAY_SUFFIX)) {
+            elementType = elementType.substring(0, elementType.length() - ARRAY_SUFFIX.length());
+            dimensions++;
+        }
+        return "[".repeat(dimensions) + "L" + toInternalPackageName(elementType);
+    }
+
+    private static int[] intersect(int[] candidates, int[] methodIds) {
+        if (candidates == null) {
+            return methodIds;
+        }
+        int[] result = new int[Math.min(candidates.length, methodIds.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < candidates.length && j < methodIds.length) {
+            if (candidates[i] < methodIds[j]) {
+                i++;
+            } else if (candidates[i] > methodIds[j]) {
+                j++;
+            } else {
+                result[count++] = candidates[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private record Term(String field, String value) {
+    }
+}
@@ -0,0 +1,37 @@
+package org.gradle.research;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Helpers for writing JSON directly to a {@link Writer}, without building an intermediate document.
+ */
+final class Json {
+    private Json() {
+    }
+
+    /**
+     * Writes the value as a quoted and escaped JSON string.
+     */
+    public static void writeString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,53 @@
+package org.gradle.research;
+
+import java.util.BitSet;
+
+/**
+ * Answers whether a class is a subtype of one of the lazy root types, with classes identified by dense IDs.
+ * <p>
+ * The answer for a class is derived from the answers for its direct supertypes and memoized in a bitset,
+ * so every class is visited at most once however many candidates share its supertypes,
+ * and adding root types does not make a check more expensive.
+ */
+class LazyTypeIndex {
+    private final DirectSupertypes supertypes;
+    private final BitSet visited = new BitSet();
+    private final BitSet lazy = new BitSet();
+
+    /**
+     * @param rootIds the IDs of the lazy root types
+     * @param supertypes the direct supertypes of a class
+     */
+    public LazyTypeIndex(int[] rootIds, DirectSupertypes supertypes) {
+        this.supertypes = supertypes;
+        for (int rootId : rootIds) {
+            visited.set(rootId);
+            lazy.set(rootId);
+        }
+    }
+
+    public boolean isLazy(int classId) {
+        if (!visited.get(classId)) {
+            // Marked before descending, so that a (malformed) cycle cannot recurse forever
+            visited.set(classId);
+            for (int supertypeId : supertypes.of(classId)) {
+                if (isLazy(supertypeId)) {
+                    lazy.set(classId);
+                    break;
+                }
+            }
+        }
+        return lazy.get(classId);
+    }
+
+    public int getLazyCount() {
+        return lazy.cardinality();
+    }
+
+    interface DirectSupertypes {
+        /**
+         * Returns the IDs of the superclass and the directly implemented interfaces of the class that are known to the index.
+         */
+        int[] of(int classId);
+    }
+}
@@ -0,0 +1,340 @@
+package org.gradle.research;
+
+import com.google.common.collect.ImmutableList;
+import com.ibm.wala.classLoader.Module;
+import com.ibm.wala.classLoader.ModuleEntry;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A WALA {@link Module} that reads a JAR through a memory mapping instead of a {@link java.util.jar.JarFile}.
+ * <p>
+ * The entries are listed from the central directory, and an entry is only inflated when WALA reads it,
+ * straight from the mapping into the reader's buffer, using pooled inflaters.
+ * Closing the module releases the inflaters, and entries can no longer be opened afterwards.
+ * The mapping itself is released by the garbage collector once neither the module nor a stream reading an entry is reachable,
+ * so streams still being read when the module is closed stay valid.
+ * <p>
+ * Nested JARs are not treated as modules, and ZIP64 archives are rejected with a {@link ZipException}.
+ */
+class MappedJarModule implements Module, Closeable {
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+    private static final int LOCAL_FILE_HEADER = 0x04034b50;
+    private static final int LOCAL_FILE_HEADER_SIZE = 30;
+    private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final int UTF8_NAMES_FLAG = 1 << 11;
+
+    private final File file;
+    private final MappedByteBuffer mapping;
+    private final ImmutableList<Entry> entries;
+    private final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    private MappedJarModule(File file, MappedByteBuffer mapping) throws ZipException {
+        this.file = file;
+        this.mapping = mapping;
+        this.entries = readCentralDirectory();
+    }
+
+    public static MappedJarModule open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new ZipException("JAR is too large to map: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapping.order(ByteOrder.LITTLE_ENDIAN);
+            return new MappedJarModule(file, mapping);
+        }
+    }
+
+    @Override
+    public Iterator<Entry> getEntries() {
+        return entries.iterator();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Inflater inflater;
+        while ((inflater = inflaters.poll()) != null) {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MappedJarModule:" + file;
+    }
+
+    private ImmutableList<Entry> readCentralDirectory() throws ZipException {
+        int end = findEndOfCentralDirectory();
+        int entryCount = readUnsignedShort(end + 10);
+        long directoryOffset = readUnsignedInt(end + 16);
+        if (entryCount == 0xFFFF || directoryOffset == ZIP64_MARKER) {
+            throw new ZipException("ZIP64 archives are not supported: " + file);
+        }
+
+        ImmutableList.Builder<Entry> builder = ImmutableList.builderWithExpectedSize(entryCount);
+        int offset = (int) directoryOffset;
+        for (int i = 0; i < entryCount; i++) {
+            if (offset + CENTRAL_DIRECTORY_HEADER_SIZE > mapping.limit() || mapping.getInt(offset) != CENTRAL_DIRECTORY_HEADER) {
+                throw new ZipException("Invalid central directory header at offset " + offset + " in " + file);
+            }
+            int flags = readUnsignedShort(offset + 8);
+            int method = readUnsignedShort(offset + 10);
+            long compressedSize = readUnsignedInt(offset + 20);
+            long size = readUnsignedInt(offset + 24);
+            int nameLength = readUnsignedShort(offset + 28);
+            int extraLength = readUnsignedShort(offset + 30);
+            int commentLength = readUnsignedShort(offset + 32);
+            long localHeaderOffset = readUnsignedInt(offset + 42);
+            if (compressedSize == ZIP64_MARKER || size == ZIP64_MARKER || localHeaderOffset == ZIP64_MARKER) {
+                throw new ZipException("ZIP64 archives are not supported: " + file);
+            }
+            byte[] name = new byte[nameLength];
+            mapping.get(offset + CENTRAL_DIRECTORY_HEADER_SIZE, name);
+            // Directories have no contents
+            if (nameLength > 0 && name[nameLength - 1] != '/') {
+                // Names are only UTF-8 when the archive says so; ISO-8859-1 maps the ASCII range of CP437 the same way
+                Charset charset = (flags & UTF8_NAMES_FLAG) != 0 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1;
+                builder.add(new Entry(new String(name, charset), method, (int) localHeaderOffset, (int) compressedSize, (int) size));
+            }
+            offset += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+        return builder.build();
+    }
+
+    private int findEndOfCentralDirectory() throws ZipException {
+        // The record is followed by a comment of at most 64 KB
+        int last = mapping.limit() - END_OF_CENTRAL_DIRECTORY_SIZE;
+        int first = Math.max(0, last - MAX_COMMENT_LENGTH);
+        for (int offset = last; offset >= first; offset--) {
+            if (mapping.getInt(offset) == END_OF_CENTRAL_DIRECTORY) {
+                return offset;
+            }
+        }
+        throw new ZipException("No end of central directory record found in " + file);
+    }
+
+    private InputStream openEntry(Entry entry) throws ZipException {
+        if (closed) {
+            throw new IllegalStateException("JAR has already been closed: " + file);
+        }
+        int header = entry.localHeaderOffset;
+        if (header + LOCAL_FILE_HEADER_SIZE > mapping.limit() || mapping.getInt(header) != LOCAL_FILE_HEADER) {
+            throw new ZipException("Invalid local file header for " + entry.name + " in " + file);
+        }
+        int dataOffset = header + LOCAL_FILE_HEADER_SIZE + readUnsignedShort(header + 26) + readUnsignedShort(header + 28);
+        if (dataOffset + entry.compressedSize > mapping.limit()) {
+            throw new ZipException("Truncated entry " + entry.name + " in " + file);
+        }
+        ByteBuffer data = mapping.slice(dataOffset, entry.compressedSize);
+        return switch (entry.method) {
+            case STORED -> new StoredInputStream(data);
+            case DEFLATED -> new InflatingInputStream(data, entry.size);
+            default -> throw new ZipException("Unsupported compression method " + entry.method + " for " + entry.name + " in " + file);
+        };
+    }
+
+    private int readUnsignedShort(int offset) {
+        return Short.toUnsignedInt(mapping.getShort(offset));
+    }
+
+    private long readUnsignedInt(int offset) {
+        return Integer.toUnsignedLong(mapping.getInt(offset));
+    }
+
+    final class Entry implements ModuleEntry {
+        private final String name;
+        private final int method;
+        private final int localHeaderOffset;
+        private final int compressedSize;
+        private final int size;
+
+        private Entry(String name, int method, int localHeaderOffset, int compressedSize, int size) {
+            this.name = name;
+            this.method = method;
+            this.localHeaderOffset = localHeaderOffset;
+            this.compressedSize = compressedSize;
+            this.size = size;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean isClassFile() {
+            return name.endsWith(".class");
+        }
+
+        @Override
+        public boolean isSourceFile() {
+            return name.endsWith(".java");
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            try {
+                return openEntry(this);
+            } catch (ZipException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean isModuleFile() {
+            return false;
+        }
+
+        @Override
+        public Module asModule() {
+            throw new UnsupportedOperationException("Nested JARs are not supported: " + name);
+        }
+
+        @Override
+        public String getClassName() {
+            int extension = name.lastIndexOf('.');
+            return extension == -1 ? name : name.substring(0, extension);
+        }
+
+        @Override
+        public Module getContainer() {
+            return MappedJarModule.this;
+        }
+
+        @Override
+        public String toString() {
+            return file + "!/" + name;
+        }
+    }
+
+    private static class StoredInputStream extends InputStream {
+        private final ByteBuffer data;
+
+        public StoredInputStream(ByteBuffer data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() {
+            return data.hasRemaining() ? data.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!data.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, data.remaining());
+            data.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return data.remaining();
+        }
+    }
+
+    /**
+     * Inflates an entry from the mapping, returning its inflater to the pool of the module when closed.
+     */
+    private class InflatingInputStream extends InputStream {
+        private final Inflater inflater;
+        private final int size;
+        private boolean released;
+
+        public InflatingInputStream(ByteBuffer data, int size) {
+            Inflater pooled = inflaters.poll();
+            this.inflater = pooled != null ? pooled : new Inflater(true);
+            this.inflater.setInput(data);
+            this.size = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (released) {
+                throw new IOException("Stream has already been closed");
+            }
+            if (length == 0) {
+                return 0;
+            }
+            try {
+                while (true) {
+                    int count = inflater.inflate(bytes, offset, length);
+                    if (count > 0) {
+                        return count;
+                    }
+                    // Raw deflate streams may need a trailing byte that isn't there to be marked as finished
+                    if (inflater.finished() || inflater.getBytesWritten() == size) {
+                        return -1;
+                    }
+                    if (inflater.needsInput() || inflater.needsDictionary()) {
+                        throw new EOFException("Unexpected end of compressed entry");
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException("Invalid compressed entry: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public int available() {
+            return released ? 0 : (int) Math.max(0, size - inflater.getBytesWritten());
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            inflater.reset();
+            if (closed) {
+                inflater.end();
+            } else {
+                inflaters.add(inflater);
+            }
+        }
+    }
+}
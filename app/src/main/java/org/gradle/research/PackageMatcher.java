@@ -0,0 +1,107 @@
+package org.gradle.research;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Matches package names in JVM internal form (e.g. {@code org/gradle/api}) against a set of patterns.
+ * <p>
+ * Patterns are regular expressions that are matched against the package name with a trailing slash.
+ * The common literal forms are compiled into a trie over the package name segments:
+ * <ul>
+ *     <li>{@code org/gradle/} matches exactly the package {@code org/gradle},</li>
+ *     <li>{@code org/gradle/api/.*} matches {@code org/gradle/api} and all its subpackages,</li>
+ *     <li>{@code .*&#47;internal/.*} matches all packages with an {@code internal} segment after the first one.</li>
+ * </ul>
+ * Any other pattern is matched as a regular expression.
+ */
+class PackageMatcher {
+    private static final Pattern LITERAL = Pattern.compile("[\\w/]+");
+    private static final Splitter SEGMENT_SPLITTER = Splitter.on('/');
+
+    private final Node root = new Node();
+    private final ImmutableSet<String> matchedSegments;
+    private final ImmutableList<Pattern> regexPatterns;
+
+    public PackageMatcher(List<String> patterns) {
+        ImmutableSet.Builder<String> matchedSegments = ImmutableSet.builder();
+        ImmutableList.Builder<Pattern> regexPatterns = ImmutableList.builder();
+        for (String pattern : patterns) {
+            if (pattern.startsWith(".*/") && pattern.endsWith("/.*") && pattern.length() > 6
+                && isLiteralSegment(pattern.substring(3, pattern.length() - 3))) {
+                matchedSegments.add(pattern.substring(3, pattern.length() - 3));
+            } else if (pattern.endsWith("/.*") && isLiteral(pattern.substring(0, pattern.length() - 3))) {
+                addPackage(pattern.substring(0, pattern.length() - 3)).includeSubpackages = true;
+            } else if (pattern.endsWith("/") && isLiteral(pattern.substring(0, pattern.length() - 1))) {
+                addPackage(pattern.substring(0, pattern.length() - 1)).matches = true;
+            } else {
+                regexPatterns.add(Pattern.compile(pattern));
+            }
+        }
+        this.matchedSegments = matchedSegments.build();
+        this.regexPatterns = regexPatterns.build();
+    }
+
+    private static boolean isLiteral(String packageName) {
+        return LITERAL.matcher(packageName).matches()
+               && !packageName.startsWith("/")
+               && !packageName.endsWith("/")
+               && !packageName.contains("//");
+    }
+
+    private static boolean isLiteralSegment(String segment) {
+        return isLiteral(segment) && !segment.contains("/");
+    }
+
+    private Node addPackage(String packageName) {
+        Node node = root;
+        for (String segment : SEGMENT_SPLITTER.split(packageName)) {
+            node = node.children.computeIfAbsent(segment, __ -> new Node());
+        }
+        return node;
+    }
+
+    public boolean matches(String packageName) {
+        if (matchesLiteral(packageName)) {
+            return true;
+        }
+        if (regexPatterns.isEmpty()) {
+            return false;
+        }
+        String packageWithTrailingSlash = packageName + "/";
+        return regexPatterns.stream()
+            .anyMatch(pattern -> pattern.matcher(packageWithTrailingSlash).matches());
+    }
+
+    private boolean matchesLiteral(String packageName) {
+        Node node = root;
+        boolean first = true;
+        for (String segment : SEGMENT_SPLITTER.split(packageName)) {
+            if (!first && matchedSegments.contains(segment)) {
+                return true;
+            }
+            first = false;
+            if (node != null) {
+                node = node.children.get(segment);
+                if (node != null && node.includeSubpackages) {
+                    return true;
+                }
+            } else if (matchedSegments.isEmpty()) {
+                return false;
+            }
+        }
+        return node != null && node.matches;
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private boolean matches;
+        private boolean includeSubpackages;
+    }
+}
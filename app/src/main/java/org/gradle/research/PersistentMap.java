@@ -0,0 +1,101 @@
+package org.gradle.research;
+
+import javax.annotation.Nullable;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable sorted map where adding an entry returns a new map that shares all nodes with the original one
+ * except the path to the new entry.
+ * <p>
+ * Implemented as a treap with priorities derived from the hash of the keys, so that the shape of the tree
+ * only depends on its keys, and it stays balanced with high probability whatever the insertion order.
+ */
+final class PersistentMap<K extends Comparable<K>, V> {
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    @Nullable
+    private final Node<K, V> root;
+    private final int size;
+
+    private PersistentMap(@Nullable Node<K, V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<K>, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Nullable
+    public V get(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int comparison = key.compareTo(node.key);
+            if (comparison == 0) {
+                return node.value;
+            }
+            node = comparison < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a map with the given entry added, replacing the value of an existing entry with the same key.
+     */
+    public PersistentMap<K, V> with(K key, V value) {
+        boolean present = get(key) != null;
+        return new PersistentMap<>(insert(root, key, priority(key), value), present ? size : size + 1);
+    }
+
+    /**
+     * Passes the entries to the action in key order.
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        forEach(root, action);
+    }
+
+    private static <K extends Comparable<K>, V> void forEach(@Nullable Node<K, V> node, BiConsumer<? super K, ? super V> action) {
+        if (node != null) {
+            forEach(node.left, action);
+            action.accept(node.key, node.value);
+            forEach(node.right, action);
+        }
+    }
+
+    private static <K extends Comparable<K>, V> Node<K, V> insert(@Nullable Node<K, V> node, K key, int priority, V value) {
+        if (node == null) {
+            return new Node<>(key, priority, value, null, null);
+        }
+        int comparison = key.compareTo(node.key);
+        if (comparison == 0) {
+            return new Node<>(key, node.priority, value, node.left, node.right);
+        }
+        if (comparison < 0) {
+            Node<K, V> left = insert(node.left, key, priority, value);
+            // Rotate right to keep the node with the higher priority on top
+            return left.priority > node.priority
+                ? new Node<>(left.key, left.priority, left.value, left.left, new Node<>(node.key, node.priority, node.value, left.right, node.right))
+                : new Node<>(node.key, node.priority, node.value, left, node.right);
+        } else {
+            Node<K, V> right = insert(node.right, key, priority, value);
+            // Rotate left to keep the node with the higher priority on top
+            return right.priority > node.priority
+                ? new Node<>(right.key, right.priority, right.value, new Node<>(node.key, node.priority, node.value, node.left, right.left), right.right)
+                : new Node<>(node.key, node.priority, node.value, node.left, right);
+        }
+    }
+
+    private static int priority(Object key) {
+        // Spread the bits of the hash, as similar keys like property names have similar hashes
+        int hash = key.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private record Node<K, V>(K key, int priority, V value, @Nullable Node<K, V> left, @Nullable Node<K, V> right) {
+    }
+}
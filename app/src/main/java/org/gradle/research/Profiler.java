@@ -0,0 +1,144 @@
+package org.gradle.research;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the wall time and allocations of the phases of an analysis, together with counters such as
+ * the number of analyzed classes.
+ * <p>
+ * Every phase is also emitted as a {@link PhaseEvent} so that it shows up in flight recordings.
+ * Allocations are measured on the thread running the phase; work done on other threads,
+ * such as parallel type extraction, is not included.
+ * <p>
+ * Measurements that slow down the analysis noticeably, like the time spent in each report rule, are only taken
+ * when the profiler is enabled, i.e. when its results are going to be written.
+ */
+public class Profiler {
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final List<PhaseResult> phases = new ArrayList<>();
+    private final Map<String, Number> counters = new LinkedHashMap<>();
+    private final boolean enabled;
+    private int depth;
+
+    public Profiler() {
+        this(false);
+    }
+
+    public Profiler(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts a phase that ends when the returned object is closed.
+     */
+    public synchronized Phase start(String name) {
+        PhaseResult result = new PhaseResult(name, depth++);
+        phases.add(result);
+        return new Phase(result);
+    }
+
+    /**
+     * Adds the given value to a counter.
+     */
+    public synchronized void count(String counter, long value) {
+        counters.merge(counter, value, (a, b) -> a.longValue() + b.longValue());
+    }
+
+    public synchronized void record(String counter, double value) {
+        counters.put(counter, value);
+    }
+
+    private synchronized void end(PhaseResult result, long wallTimeNanos, long allocatedBytes) {
+        result.wallTimeNanos = wallTimeNanos;
+        result.allocatedBytes = allocatedBytes;
+        depth--;
+    }
+
+    public synchronized void writeJson(Writer writer) throws IOException {
+        writer.write("{\n  \"phases\": [");
+        for (int i = 0; i < phases.size(); i++) {
+            PhaseResult phase = phases.get(i);
+            writer.write(i == 0 ? "\n" : ",\n");
+            writer.write("    {\"name\": ");
+            Json.writeString(writer, phase.name);
+            writer.write(", \"depth\": " + phase.depth);
+            writer.write(", \"wallTimeMillis\": " + phase.wallTimeNanos / 1_000_000.0);
+            writer.write(", \"allocatedBytes\": " + phase.allocatedBytes + "}");
+        }
+        writer.write("\n  ],\n  \"counters\": {");
+        boolean first = true;
+        for (Map.Entry<String, Number> counter : counters.entrySet()) {
+            writer.write(first ? "\n" : ",\n");
+            first = false;
+            writer.write("    ");
+            Json.writeString(writer, counter.getKey());
+            writer.write(": " + counter.getValue());
+        }
+        writer.write("\n  }\n}\n");
+    }
+
+    public class Phase implements AutoCloseable {
+        private final PhaseResult result;
+        private final PhaseEvent event = new PhaseEvent();
+        private final long startNanos;
+        private final long startAllocatedBytes;
+
+        private Phase(PhaseResult result) {
+            this.result = result;
+            this.event.phase = result.name;
+            this.event.begin();
+            this.startAllocatedBytes = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            long wallTimeNanos = System.nanoTime() - startNanos;
+            long allocatedBytes = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - startAllocatedBytes;
+            event.allocatedBytes = allocatedBytes;
+            event.commit();
+            end(result, wallTimeNanos, allocatedBytes);
+        }
+    }
+
+    private static class PhaseResult {
+        private final String name;
+        private final int depth;
+        private long wallTimeNanos;
+        private long allocatedBytes;
+
+        public PhaseResult(String name, int depth) {
+            this.name = name;
+            this.depth = depth;
+        }
+    }
+
+    @Name("org.gradle.research.Phase")
+    @Label("Analyzer Phase")
+    @Category("Public API Analyzer")
+    public static class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+    }
+}
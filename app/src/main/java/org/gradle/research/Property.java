@@ -0,0 +1,52 @@
+package org.gradle.research;
+
+import com.google.common.collect.ImmutableSet;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class Property {
+    @Nullable
+    private final ApiMethod getter;
+    private final List<ApiMethod> setters;
+
+    Property(@Nullable ApiMethod getter, List<ApiMethod> setters) {
+        this.getter = getter;
+        this.setters = setters;
+    }
+
+    /**
+     * Returns the getter of the property, or {@code null} if the property has only setters.
+     */
+    @Nullable
+    public ApiMethod getGetter() {
+        return getter;
+    }
+
+    public List<ApiMethod> getSetters() {
+        return setters;
+    }
+
+    public ImmutableSet<String> collectTypes() {
+        return Stream.concat(
+                Stream.ofNullable(getter)
+                    .map(ApiMethod::returnType),
+                setters.stream()
+                    .map(method -> method.getParameterType(0))
+            )
+            .collect(ImmutableSet.toImmutableSet());
+    }
+
+    public Optional<String> matchingGetterAndSetterType() {
+        if (getter == null) {
+            return Optional.empty();
+        }
+        String getterType = getter.returnType();
+        return setters.stream()
+            .map(method -> method.getParameterType(0))
+            .filter(setterType -> setterType.equals(getterType))
+            .findFirst();
+    }
+}
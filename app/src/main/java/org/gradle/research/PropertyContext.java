@@ -0,0 +1,68 @@
+package org.gradle.research;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Multimaps;
+
+import java.util.List;
+
+/**
+ * The property a {@link ReportRule} is applied to, together with the type declaring it.
+ */
+public class PropertyContext {
+    private final ApiModel model;
+    private final int typeId;
+    private final SignatureRenderer renderer;
+    private ImmutableListMultimap<String, ApiMethod> methodsByName;
+    private int propertyId;
+    private Property property;
+
+    PropertyContext(ApiModel model, int typeId, SignatureRenderer renderer) {
+        this.model = model;
+        this.typeId = typeId;
+        this.renderer = renderer;
+    }
+
+    void moveTo(int propertyId) {
+        this.propertyId = propertyId;
+        this.property = null;
+    }
+
+    public ApiType getType() {
+        return model.getType(typeId);
+    }
+
+    public String getPropertyName() {
+        return model.getPropertyName(propertyId);
+    }
+
+    public Property getProperty() {
+        if (property == null) {
+            property = model.getProperty(propertyId);
+        }
+        return property;
+    }
+
+    /**
+     * Returns the public methods of the type with the given name, ordered by signature.
+     */
+    public List<ApiMethod> getMethodsNamed(String name) {
+        if (methodsByName == null) {
+            methodsByName = Multimaps.index(model.getMethods(typeId), ApiMethod::name);
+        }
+        return methodsByName.get(name);
+    }
+
+    /**
+     * Whether the given type is assignable to one of the lazy types, e.g. {@code Provider}.
+     */
+    public boolean isLazyType(String typeName) {
+        return model.isLazyType(typeName);
+    }
+
+    /**
+     * Returns the simple name of a type to mention in the detail of a finding, e.g. {@code String[]} for {@code [Ljava/lang/String}.
+     */
+    public String getSimpleName(String typeName) {
+        return renderer.getSimpleName(typeName);
+    }
+}
@@ -0,0 +1,38 @@
+package org.gradle.research;
+
+import java.util.Optional;
+
+sealed interface PropertyMethod {
+    String propertyName();
+
+    ApiMethod method();
+
+    static Optional<PropertyMethod> from(ApiMethod method) {
+        if (method.isStatic()) {
+            return Optional.empty();
+        }
+        String methodName = method.name();
+        if (method.getNumberOfParameters() == 0 && !method.returnType().equals(ApiMethod.VOID)) {
+            if (methodName.startsWith("get") && methodName.length() > 3) {
+                return Optional.of(new Getter(getPropertyName(methodName, 3), method));
+            }
+            if (methodName.startsWith("is") && methodName.length() > 2) {
+                return Optional.of(new Getter(getPropertyName(methodName, 2), method));
+            }
+        }
+        if (method.getNumberOfParameters() == 1 && methodName.startsWith("set") && methodName.length() > 3) {
+            return Optional.of(new Setter(getPropertyName(methodName, 3), method));
+        }
+        return Optional.empty();
+    }
+
+    private static String getPropertyName(String methodName, int prefixLength) {
+        return Character.toLowerCase(methodName.charAt(prefixLength)) + methodName.substring(prefixLength + 1);
+    }
+
+    record Getter(String propertyName, ApiMethod method) implements PropertyMethod {
+    }
+
+    record Setter(String propertyName, ApiMethod method) implements PropertyMethod {
+    }
+}
@@ -3,95 +3,296 @@
  */
 package org.gradle.research;
 
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Spec;
 
+import javax.annotation.Nullable;
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Files;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
-@Command(name = "PublicApiAnalyzer", description = "Generates a report for provided JAR files.")
+@Command(
+    name = "PublicApiAnalyzer",
+    description = "Generates a report for provided JAR files.",
+    subcommands = {BatchCommand.class, DiffCommand.class, QueryCommand.class})
 public class PublicApiAnalyzer implements Callable<Integer> {
 
+    @Spec
+    private CommandSpec spec;
+
+    // Not marked as required, so that subcommands can be run without them
     @Option(
         names = {"--classpath", "--jar"},
-        required = true,
         description = "JAR or directory to analyze")
     private List<File> classpath;
 
-    @Option(
-        names = "--ignore-package",
-        description = "Ignore packages matching the given regular expression (e.g. 'org.gradle.caching'); subpackages are also ignored")
-    private List<String> ignoredPackages = List.of();
-
-    @Option(
-        names = "--ignore-type",
-        description = "Ignore types with the given FQCN (e.g. 'org.gradle.caching.configuration.BuildCache')")
-    private List<String> ignoredTypes = List.of();
+    @Mixin
+    private AnalysisOptions analysisOptions;
 
     @Option(
-        names = "--ignore-deprecated",
-        description = "Ignore deprecated types and members")
-    private boolean ignoreDeprecated = false;
+        names = "--profile",
+        description = "Write timings, allocations and counters of the analysis phases to the given JSON file")
+    private File profileOutput;
 
     @Option(
         names = "--output",
-        required = true,
         description = "Output file for the report")
     private File output;
 
+    @Option(
+        names = "--index",
+        description = "Also write an index of the API to the given file, for the 'query' command")
+    private File indexOutput;
+
+    @Option(
+        names = "--format",
+        description = "Format of the report: 'markdown', 'jsonl' or 'sarif'; defaults to ${DEFAULT-VALUE}")
+    private ReportFormat format = ReportFormat.MARKDOWN;
+
     @Option(
         names = "--title",
         description = "Title of the report",
         defaultValue = "Public API Report")
     private String title;
 
+    @Option(
+        names = "--watch",
+        description = "Keep running and regenerate the report whenever class files in directory classpath entries change; always reads the classpath with the 'fast' backend. "
+            + "JAR entries are not watched, so the classes of a rebuilt JAR stay cached until the analyzer is restarted")
+    private boolean watch;
+
+    @Option(
+        names = "--daemon",
+        description = "Start a daemon that generates reports for clients started with --use-daemon")
+    private boolean daemon;
+
+    @Option(
+        names = "--use-daemon",
+        description = "Let a running daemon generate the report")
+    private boolean useDaemon;
+
+    @Option(
+        names = "--socket",
+        description = "Unix domain socket the daemon listens on")
+    private File socket = new File(System.getProperty("java.io.tmpdir"), "public-api-analyzer.sock");
+
+    @Option(
+        names = "--resident-jars",
+        description = "Number of recently used JARs the daemon keeps open",
+        defaultValue = "64")
+    private int residentJars;
+
     public static void main(String... args) {
-        int exitCode = new CommandLine(new PublicApiAnalyzer()).execute(args);
+        int exitCode = new CommandLine(new PublicApiAnalyzer())
+            .setCaseInsensitiveEnumValuesAllowed(true)
+            .execute(args);
         System.exit(exitCode);
     }
 
     @Override
     public Integer call() throws Exception {
+        if (daemon) {
+            return new AnalyzerDaemon(socket.toPath(), residentJars).serve();
+        }
+        if (classpath == null || classpath.isEmpty()) {
+            throw new ParameterException(spec.commandLine(), "Missing required option: '--classpath=<classpath>'");
+        }
+        if (output == null) {
+            throw new ParameterException(spec.commandLine(), "Missing required option: '--output=<output>'");
+        }
+        if (indexOutput != null && analysisOptions.isPipeline()) {
+            throw new ParameterException(spec.commandLine(), "--index cannot be combined with --pipeline, as the index needs the whole API");
+        }
+        if (useDaemon) {
+            List<String> daemonArgs = spec.commandLine().getParseResult().originalArgs().stream()
+                .filter(arg -> !arg.equals("--use-daemon"))
+                .toList();
+            int exitCode = AnalyzerDaemon.forward(socket.toPath(), daemonArgs, output);
+            if (exitCode == 0) {
+                System.out.println("Report generated at " + output.getAbsolutePath());
+            }
+            return exitCode;
+        }
+        if (watch) {
+            return watch();
+        }
+        writeOutput(AnalysisEnvironment.standalone());
+        System.out.println("Report generated at " + output.getAbsolutePath());
+        return 0;
+    }
+
+    private void writeOutput(AnalysisEnvironment environment) throws IOException, ClassHierarchyException {
         //noinspection ResultOfMethodCallIgnored
-        output.getParentFile().mkdirs();
-        try (PrintWriter writer = new PrintWriter(output)) {
-            writer.println("# " + title);
-            writer.println();
-            if (ignoredPackages.isEmpty()) {
-                writer.println("No packages were ignored during analysis.");
-            } else {
-                writer.println("Ignored packages during analysis:");
-                ignoredPackages.stream()
-                    .map("- `%s`"::formatted)
-                    .forEach(writer::println);
+        output.getAbsoluteFile().getParentFile().mkdirs();
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(output.toPath()))) {
+            generateReport(writer, environment);
+        }
+    }
+
+    /**
+     * Regenerates the report whenever class files in the directory entries of the classpath change.
+     * Only the changed class files are read again; everything else is recomputed from the class files of the previous run.
+     */
+    private int watch() throws IOException, ClassHierarchyException, InterruptedException {
+        ClassFileCache classFiles = new ClassFileCache();
+        AnalysisEnvironment environment = AnalysisEnvironment.watching(classFiles);
+        try (ClasspathWatcher watcher = ClasspathWatcher.watch(classpath)) {
+            if (!watcher.isWatching()) {
+                throw new ParameterException(spec.commandLine(), "--watch requires at least one directory on the classpath");
             }
-            writer.println();
-
-            if (ignoredTypes.isEmpty()) {
-                writer.println("No types were ignored during analysis.");
-            } else {
-                writer.println("Ignored types during analysis:");
-                ignoredTypes.stream()
-                    .map("- `%s`"::formatted)
-                    .forEach(writer::println);
+            writeOutput(environment);
+            System.out.println("Report generated at " + output.getAbsolutePath() + ", watching for changes");
+            while (true) {
+                Optional<Set<String>> changedClasses = watcher.awaitChanges();
+                long start = System.nanoTime();
+                changedClasses.ifPresentOrElse(classFiles::invalidate, classFiles::invalidateAll);
+                try {
+                    writeOutput(environment);
+                    System.out.printf("Report regenerated in %d ms%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                } catch (IOException | RuntimeException e) {
+                    // Class files may be incomplete while the compiler is still writing them, so wait for the next change
+                    System.err.println("Failed to regenerate report: " + e);
+                }
             }
-            writer.println();
+        }
+    }
 
-            if (ignoreDeprecated) {
-                writer.println("Deprecated types and members were **ignored** during analysis.");
-            } else {
-                writer.println("Deprecated types and members were **analyzed**.");
+    void generateReport(PrintWriter writer, AnalysisEnvironment environment) throws IOException, ClassHierarchyException {
+        Profiler profiler = new Profiler(profileOutput != null);
+        writeReport(title, classpath, analysisOptions, format, environment, writer, profiler, indexOutput);
+        if (indexOutput != null) {
+            System.out.println("Index written to " + indexOutput.getAbsolutePath());
+        }
+        if (profileOutput != null) {
+            try (Writer profileWriter = Files.newBufferedWriter(profileOutput.toPath())) {
+                profiler.writeJson(profileWriter);
             }
-            writer.println();
+            System.out.println("Profile written to " + profileOutput.getAbsolutePath());
+        }
+    }
 
-            ApiTypeFilter apiTypeFilter = new ApiTypeFilter(ignoredPackages, ignoredTypes);
-            new ReportGenerator(apiTypeFilter, ignoreDeprecated, classpath, writer)
-                .generateReport();
+    /**
+     * Resolves relative paths given on the command line against the working directory of a daemon client.
+     */
+    void resolvePaths(File workingDirectory) {
+        classpath = classpath.stream()
+            .map(entry -> resolve(workingDirectory, entry))
+            .toList();
+        if (profileOutput != null) {
+            profileOutput = resolve(workingDirectory, profileOutput);
         }
-        System.out.println("Report generated at " + output.getAbsolutePath());
-        return 0;
+        if (indexOutput != null) {
+            indexOutput = resolve(workingDirectory, indexOutput);
+        }
+        analysisOptions.resolvePaths(workingDirectory);
+    }
+
+    static File resolve(File workingDirectory, File file) {
+        return file.isAbsolute() ? file : new File(workingDirectory, file.getPath());
+    }
+
+    /**
+     * Writes a report from a tool running the analyzer in its own JVM, like the worker of the Gradle plugin, given the command line options
+     * of the report, which must include {@code --classpath} and {@code --output}. Only takes JDK types, so that tools compiled for older
+     * Java versions can call it reflectively. The JDK class files are read once and shared by all reports written by the JVM.
+     */
+    public static void writeReport(String... args) throws IOException, ClassHierarchyException {
+        PublicApiAnalyzer request = new PublicApiAnalyzer();
+        if (new CommandLine(request).setCaseInsensitiveEnumValuesAllowed(true).parseArgs(args).hasSubcommand()) {
+            throw new IllegalArgumentException("Subcommands cannot be run by writeReport");
+        }
+        if (request.classpath == null || request.classpath.isEmpty() || request.output == null) {
+            throw new IllegalArgumentException("Both --classpath and --output are required");
+        }
+        request.writeOutput(EmbeddedEnvironment.INSTANCE);
+    }
+
+    static void writeReport(
+        String title,
+        List<File> classpath,
+        AnalysisOptions options,
+        ReportFormat format,
+        AnalysisEnvironment environment,
+        PrintWriter writer,
+        Profiler profiler
+    ) throws IOException, ClassHierarchyException {
+        writeReport(title, classpath, options, format, environment, writer, profiler, null);
+    }
+
+    /**
+     * Writes a report, and also writes an index of the analyzed API to {@code indexOutput} if given.
+     */
+    static void writeReport(
+        String title,
+        List<File> classpath,
+        AnalysisOptions options,
+        ReportFormat format,
+        AnalysisEnvironment environment,
+        PrintWriter writer,
+        Profiler profiler,
+        @Nullable File indexOutput
+    ) throws IOException, ClassHierarchyException {
+        if (format == ReportFormat.MARKDOWN) {
+            writePreamble(title, options, writer);
+        }
+        ApiModelLoader modelLoader = new ApiModelLoader(classpath, options, environment, profiler);
+        ApiModelExtractor.ApiModelConsumer indexWriter = indexOutput == null ? null : model -> {
+            try (var ignored = profiler.start("Write index")) {
+                ApiIndex.write(model, indexOutput.toPath());
+            }
+        };
+        new ReportGenerator(modelLoader, format, writer, profiler, indexWriter)
+            .generateReport();
+    }
+
+    private static void writePreamble(String title, AnalysisOptions options, PrintWriter writer) {
+        writer.println("# " + title);
+        writer.println();
+        if (options.getIgnoredPackages().isEmpty()) {
+            writer.println("No packages were ignored during analysis.");
+        } else {
+            writer.println("Ignored packages during analysis:");
+            options.getIgnoredPackages().stream()
+                .map("- `%s`"::formatted)
+                .forEach(writer::println);
+        }
+        writer.println();
+
+        if (options.getIgnoredTypes().isEmpty()) {
+            writer.println("No types were ignored during analysis.");
+        } else {
+            writer.println("Ignored types during analysis:");
+            options.getIgnoredTypes().stream()
+                .map("- `%s`"::formatted)
+                .forEach(writer::println);
+        }
+        writer.println();
+
+        if (options.isIgnoreDeprecated()) {
+            writer.println("Deprecated types and members were **ignored** during analysis.");
+        } else {
+            writer.println("Deprecated types and members were **analyzed**.");
+        }
+        writer.println();
+    }
+
+    /**
+     * The environment shared by the reports written through {@link #writeReport(String...)}, created on first use.
+     */
+    private static class EmbeddedEnvironment {
+        private static final AnalysisEnvironment INSTANCE = new AnalysisEnvironment(new SharedJdkClasses(), ClasspathModules.DEFAULT);
     }
 }
@@ -0,0 +1,92 @@
+package org.gradle.research;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.Spec;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.stream.IntStream;
+
+/**
+ * Answers filter expressions against an index written with {@code --index}.
+ * <p>
+ * The index is memory-mapped, so only the columns and posting lists a query needs are read,
+ * and neither a class hierarchy nor the API model is built.
+ */
+@Command(
+    name = "query",
+    description = "Lists the methods in an API index that match all given terms.",
+    footer = {"", "Terms:", IndexQuery.FIELDS})
+public class QueryCommand implements Callable<Integer> {
+    @Spec
+    private CommandSpec spec;
+
+    @Option(
+        names = "--index",
+        required = true,
+        description = "Index written by --index")
+    private File index;
+
+    @Option(
+        names = "--types",
+        description = "List the types declaring matching methods instead of the methods")
+    private boolean types;
+
+    @Parameters(
+        arity = "1..*",
+        paramLabel = "TERM",
+        description = "Terms like 'package:org.gradle.api.tasks', 'kind:setter' or 'param:Object'")
+    private List<String> expression;
+
+    @Override
+    public Integer call() throws Exception {
+        IndexQuery query;
+        try {
+            query = IndexQuery.parse(expression);
+        } catch (IllegalArgumentException e) {
+            throw new ParameterException(spec.commandLine(), e.getMessage());
+        }
+        ApiIndex apiIndex = ApiIndex.open(index.toPath());
+        int[] methodIds = query.findMethods(apiIndex);
+
+        PrintWriter writer = new PrintWriter(System.out);
+        if (types) {
+            // Methods are grouped by type, so the types are listed in order
+            IntStream.of(methodIds)
+                .map(apiIndex::getMethodType)
+                .distinct()
+                .forEach(typeId -> writer.println(toQualifiedName(apiIndex.getString(apiIndex.getTypeName(typeId)))));
+        } else {
+            SignatureRenderer renderer = new SignatureRenderer();
+            StringBuilder line = new StringBuilder();
+            for (int methodId : methodIds) {
+                line.setLength(0);
+                line.append(renderer.getSimpleName(apiIndex.getString(apiIndex.getReturnType(methodId))))
+                    .append(' ')
+                    .append(toQualifiedName(apiIndex.getString(apiIndex.getTypeName(apiIndex.getMethodType(methodId)))))
+                    .append('.')
+                    .append(apiIndex.getString(apiIndex.getMethodName(methodId)))
+                    .append('(');
+                for (int i = 0; i < apiIndex.getNumberOfParameters(methodId); i++) {
+                    if (i > 0) {
+                        line.append(", ");
+                    }
+                    line.append(renderer.getSimpleName(apiIndex.getString(apiIndex.getParameterType(methodId, i))));
+                }
+                writer.println(line.append(')'));
+            }
+        }
+        writer.flush();
+        return 0;
+    }
+
+    private static String toQualifiedName(String typeName) {
+        return typeName.substring(1).replace('/', '.');
+    }
+}
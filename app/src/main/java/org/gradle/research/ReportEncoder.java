@@ -0,0 +1,277 @@
+package org.gradle.research;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes a report in one of the {@link ReportFormat}s.
+ * <p>
+ * Findings are encoded into the fragment of their section while the rules are applied, directly to the writer
+ * and without formatting them into intermediate strings. Once all findings are known, the encoder writes
+ * the head of the report, the fragments in section order and the tail of the report.
+ */
+abstract class ReportEncoder {
+    private static final String NEW_LINE = System.lineSeparator();
+
+    protected final ImmutableList<ReportRule> rules;
+    protected final SignatureRenderer renderer = new SignatureRenderer();
+
+    protected ReportEncoder(ImmutableList<ReportRule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Returns the renderer used for the signatures in the report, which rules also use for the type names in the details of findings.
+     */
+    public SignatureRenderer getRenderer() {
+        return renderer;
+    }
+
+    public static ReportEncoder create(ReportFormat format, ImmutableList<ReportRule> rules) {
+        return switch (format) {
+            case MARKDOWN -> new Markdown(rules);
+            case JSONL -> new JsonLines(rules);
+            case SARIF -> new Sarif(rules);
+        };
+    }
+
+    /**
+     * Writes a finding of the rule with the given index to the fragment of its section.
+     */
+    public abstract void encodeFinding(Writer fragment, int ruleIndex, Finding finding) throws IOException;
+
+    /**
+     * Writes what comes before the first section.
+     */
+    public abstract void writeHead(Writer writer, ReportSummary summary) throws IOException;
+
+    /**
+     * Writes the section of the rule with the given index, including its fragment.
+     */
+    public abstract void writeSection(Writer writer, int ruleIndex, ReportSummary summary, SectionFragments fragments) throws IOException;
+
+    /**
+     * Writes what comes after the last section.
+     */
+    public abstract void writeTail(Writer writer, ReportSummary summary) throws IOException;
+
+    /**
+     * Returns the fully qualified name of a type in the model, e.g. {@code org.gradle.api.Project} for {@code Lorg/gradle/api/Project}.
+     */
+    protected static String toQualifiedName(String typeName) {
+        return typeName.substring(1).replace('/', '.');
+    }
+
+    /**
+     * Returns the name and the JVM descriptor of a method, e.g. {@code setName(Ljava/lang/String;)V}.
+     */
+    protected static String toMemberDescriptor(ApiMethod method) {
+        StringBuilder descriptor = new StringBuilder(method.name()).append('(');
+        for (String parameterType : method.parameterTypes()) {
+            appendTypeDescriptor(descriptor, parameterType);
+        }
+        descriptor.append(')');
+        appendTypeDescriptor(descriptor, method.returnType());
+        return descriptor.toString();
+    }
+
+    private static void appendTypeDescriptor(StringBuilder descriptor, String typeName) {
+        descriptor.append(typeName);
+        // Class names in the model omit the trailing semicolon of the descriptor
+        if (typeName.charAt(typeName.lastIndexOf('[') + 1) == 'L') {
+            descriptor.append(';');
+        }
+    }
+
+    /**
+     * Writes the fields identifying a finding, without the surrounding braces.
+     */
+    protected static void writeFindingFields(Writer writer, ReportRule rule, Finding finding) throws IOException {
+        // Names in class files may contain any character but '.', ';', '[' and '/', so all of them are escaped
+        writer.write("\"ruleId\":");
+        Json.writeString(writer, rule.getId());
+        writer.write(",\"declaringType\":");
+        Json.writeString(writer, toQualifiedName(finding.method().declaringType()));
+        writer.write(",\"member\":");
+        Json.writeString(writer, toMemberDescriptor(finding.method()));
+        writer.write(",\"propertyName\":");
+        Json.writeString(writer, finding.propertyName());
+        if (finding.detail() != null) {
+            writer.write(",\"detail\":");
+            Json.writeString(writer, finding.detail());
+        }
+    }
+
+    private static class Markdown extends ReportEncoder {
+        public Markdown(ImmutableList<ReportRule> rules) {
+            super(rules);
+        }
+
+        @Override
+        public void encodeFinding(Writer fragment, int ruleIndex, Finding finding) throws IOException {
+            fragment.write("- `");
+            fragment.write(renderer.getSimpleSignature(finding.method()));
+            fragment.write('`');
+            if (finding.detail() != null) {
+                fragment.write(' ');
+                fragment.write(finding.detail());
+            }
+            fragment.write(NEW_LINE);
+        }
+
+        @Override
+        public void writeHead(Writer writer, ReportSummary summary) throws IOException {
+            writeHeader(writer, "Summary");
+            writeCount(writer, "Packages", summary.getPackageCount());
+            writeCount(writer, "Types", summary.getTypeCount());
+            writeCount(writer, "Methods", summary.getMethodCount());
+            writeCount(writer, "Properties", summary.getPropertyCount());
+        }
+
+        @Override
+        public void writeSection(Writer writer, int ruleIndex, ReportSummary summary, SectionFragments fragments) throws IOException {
+            writeHeader(writer, rules.get(ruleIndex).getTitle());
+            fragments.transferTo(ruleIndex, writer);
+        }
+
+        @Override
+        public void writeTail(Writer writer, ReportSummary summary) {
+        }
+
+        private static void writeHeader(Writer writer, String header) throws IOException {
+            writer.write(NEW_LINE);
+            writer.write("## ");
+            writer.write(header);
+            writer.write(NEW_LINE);
+            writer.write(NEW_LINE);
+        }
+
+        private static void writeCount(Writer writer, String name, int count) throws IOException {
+            writer.write("- ");
+            writer.write(name);
+            writer.write(": ");
+            writer.write(Integer.toString(count));
+            writer.write(NEW_LINE);
+        }
+    }
+
+    /**
+     * Writes a finding record per line, and a summary record with the counts as the last line.
+     */
+    private static class JsonLines extends ReportEncoder {
+        public JsonLines(ImmutableList<ReportRule> rules) {
+            super(rules);
+        }
+
+        @Override
+        public void encodeFinding(Writer fragment, int ruleIndex, Finding finding) throws IOException {
+            fragment.write("{\"record\":\"finding\",");
+            writeFindingFields(fragment, rules.get(ruleIndex), finding);
+            fragment.write("}\n");
+        }
+
+        @Override
+        public void writeHead(Writer writer, ReportSummary summary) {
+        }
+
+        @Override
+        public void writeSection(Writer writer, int ruleIndex, ReportSummary summary, SectionFragments fragments) throws IOException {
+            fragments.transferTo(ruleIndex, writer);
+        }
+
+        @Override
+        public void writeTail(Writer writer, ReportSummary summary) throws IOException {
+            writer.write("{\"record\":\"summary\"");
+            writer.write(",\"packages\":" + summary.getPackageCount());
+            writer.write(",\"types\":" + summary.getTypeCount());
+            writer.write(",\"methods\":" + summary.getMethodCount());
+            writer.write(",\"properties\":" + summary.getPropertyCount());
+            writer.write(",\"findings\":{");
+            for (int i = 0; i < rules.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Json.writeString(writer, rules.get(i).getId());
+                writer.write(":" + summary.getFindingCount(i));
+            }
+            writer.write("}}\n");
+        }
+    }
+
+    /**
+     * Writes a SARIF log with a single run, the rules as the rules of the tool and the counts as properties of the run.
+     */
+    private static class Sarif extends ReportEncoder {
+        // Whether a result has been written to the fragment of each section, and to the log
+        private final boolean[] fragmentStarted;
+        private boolean resultWritten;
+
+        public Sarif(ImmutableList<ReportRule> rules) {
+            super(rules);
+            this.fragmentStarted = new boolean[rules.size()];
+        }
+
+        @Override
+        public void encodeFinding(Writer fragment, int ruleIndex, Finding finding) throws IOException {
+            ReportRule rule = rules.get(ruleIndex);
+            // The results of different sections are separated when the fragments are merged
+            if (fragmentStarted[ruleIndex]) {
+                fragment.write(',');
+            }
+            fragmentStarted[ruleIndex] = true;
+            fragment.write("\n    {\"ruleId\":");
+            Json.writeString(fragment, rule.getId());
+            fragment.write(",\"ruleIndex\":" + ruleIndex);
+            fragment.write(",\"level\":\"warning\",\"message\":{\"text\":");
+            Json.writeString(fragment, finding.detail() == null
+                ? renderer.getSimpleSignature(finding.method())
+                : renderer.getSimpleSignature(finding.method()) + " " + finding.detail());
+            fragment.write("},\"locations\":[{\"logicalLocations\":[{\"fullyQualifiedName\":");
+            Json.writeString(fragment, toQualifiedName(finding.method().declaringType()) + "." + finding.method().name());
+            fragment.write(",\"decoratedName\":");
+            Json.writeString(fragment, toMemberDescriptor(finding.method()));
+            fragment.write(",\"kind\":\"member\"}]}],\"properties\":{");
+            writeFindingFields(fragment, rule, finding);
+            fragment.write("}}");
+        }
+
+        @Override
+        public void writeHead(Writer writer, ReportSummary summary) throws IOException {
+            writer.write("{\n  \"version\":\"2.1.0\",\n  \"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\",\n");
+            writer.write("  \"runs\":[{\n  \"tool\":{\"driver\":{\"name\":\"gradle-public-api-analyzer\",\"rules\":[");
+            for (int i = 0; i < rules.size(); i++) {
+                ReportRule rule = rules.get(i);
+                writer.write(i == 0 ? "\n    {\"id\":" : ",\n    {\"id\":");
+                Json.writeString(writer, rule.getId());
+                writer.write(",\"shortDescription\":{\"text\":");
+                Json.writeString(writer, rule.getTitle());
+                writer.write("}}");
+            }
+            writer.write("\n  ]}},\n  \"results\":[");
+        }
+
+        @Override
+        public void writeSection(Writer writer, int ruleIndex, ReportSummary summary, SectionFragments fragments) throws IOException {
+            if (summary.getFindingCount(ruleIndex) == 0) {
+                return;
+            }
+            if (resultWritten) {
+                writer.write(',');
+            }
+            fragments.transferTo(ruleIndex, writer);
+            resultWritten = true;
+        }
+
+        @Override
+        public void writeTail(Writer writer, ReportSummary summary) throws IOException {
+            writer.write("\n  ],\n  \"properties\":{");
+            writer.write("\"packages\":" + summary.getPackageCount());
+            writer.write(",\"types\":" + summary.getTypeCount());
+            writer.write(",\"methods\":" + summary.getMethodCount());
+            writer.write(",\"properties\":" + summary.getPropertyCount());
+            writer.write("}\n  }]\n}\n");
+        }
+    }
+}
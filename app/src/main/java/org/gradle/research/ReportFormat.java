@@ -0,0 +1,19 @@
+package org.gradle.research;
+
+/**
+ * The format a report is written in.
+ */
+public enum ReportFormat {
+    /**
+     * A human-readable document with a section per rule.
+     */
+    MARKDOWN,
+    /**
+     * One JSON object per line for each finding, followed by a summary record.
+     */
+    JSONL,
+    /**
+     * A SARIF 2.1.0 log with a result per finding, for tools that ingest static analysis results.
+     */
+    SARIF
+}
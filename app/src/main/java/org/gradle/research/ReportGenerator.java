@@ -1,367 +1,168 @@
 package org.gradle.research;
 
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Maps;
-import com.google.common.collect.MultimapBuilder;
-import com.ibm.wala.classLoader.BinaryDirectoryTreeModule;
-import com.ibm.wala.classLoader.IClass;
-import com.ibm.wala.classLoader.IMethod;
-import com.ibm.wala.core.util.config.AnalysisScopeReader;
-import com.ibm.wala.ipa.callgraph.AnalysisScope;
-import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.google.common.collect.ImmutableList;
 import com.ibm.wala.ipa.cha.ClassHierarchyException;
-import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
-import com.ibm.wala.types.ClassLoaderReference;
-import com.ibm.wala.types.TypeName;
-import com.ibm.wala.types.TypeReference;
-import com.ibm.wala.types.annotations.Annotation;
 
-import java.io.File;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.UncheckedIOException;
-import java.nio.file.Files;
+import java.io.Writer;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.TreeMap;
-import java.util.function.Predicate;
-import java.util.jar.JarFile;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public class ReportGenerator {
-    private final ApiTypeFilter apiTypeFilter;
-    private final boolean ignoreDeprecated;
-    private final List<File> classpath;
+    private final ApiModelLoader modelLoader;
+    private final ReportFormat format;
     private final PrintWriter writer;
+    private final Profiler profiler;
+    @Nullable
+    private final ApiModelExtractor.ApiModelConsumer modelConsumer;
 
-    public ReportGenerator(
-        ApiTypeFilter apiTypeFilter,
-        boolean ignoreDeprecated,
-        List<File> classpath,
-        PrintWriter writer) {
-        this.apiTypeFilter = apiTypeFilter;
-        this.ignoreDeprecated = ignoreDeprecated;
-        this.classpath = classpath;
-        this.writer = writer;
+    public ReportGenerator(ApiModelLoader modelLoader, PrintWriter writer, Profiler profiler) {
+        this(modelLoader, ReportFormat.MARKDOWN, writer, profiler);
     }
 
-    public void generateReport() throws IOException, ClassHierarchyException {
-        AnalysisScope scope = createScope(classpath);
-        ClassHierarchy hierarchy = ClassHierarchyFactory.make(scope);
-        ListMultimap<String, IClass> packagesToTypes = MultimapBuilder.treeKeys().arrayListValues().build();
-        Comparator<IClass> classComparator = Comparator.comparing(clazz -> clazz.getName().getClassName().toString());
-        ListMultimap<IClass, IMethod> typesToMethods = MultimapBuilder.treeKeys(classComparator).arrayListValues().build();
-        Map<IClass, Map<String, Property>> typesToProperties = Maps.newTreeMap(classComparator);
-        for (IClass iClass : hierarchy) {
-            // Skip non-public types
-            if (!iClass.isPublic()) {
-                continue;
-            }
-            // Skip anonymous inner classes
-            if (iClass.getName().getClassName().toString().contains("$")) {
-                continue;
-            }
-            // Skip internal APIs
-            if (!apiTypeFilter.includeType(iClass)) {
-                continue;
-            }
-            // Skip deprecated types
-            if (ignoreDeprecated && hasDeprecatedAnnotation(iClass.getAnnotations())) {
-                continue;
-            }
-
-            packagesToTypes.put(String.valueOf(iClass.getName().getPackage()), iClass);
-            for (IMethod declaredMethod : iClass.getDeclaredMethods()) {
-                if (!declaredMethod.isPublic()) {
-                    continue;
-                }
-                // Skip deprecated methods
-                if (ignoreDeprecated && hasDeprecatedAnnotation(declaredMethod.getAnnotations())) {
-                    continue;
-                }
-                typesToMethods.put(iClass, declaredMethod);
-
-                if (declaredMethod.isInit() || declaredMethod.isClinit()) {
-                    continue;
-                }
-
-                PropertyMethod.from(declaredMethod)
-                    .ifPresent(propertyMethod ->
-                        typesToProperties.computeIfAbsent(iClass, __ -> new TreeMap<>())
-                            .computeIfAbsent(propertyMethod.propertyName(), __ -> new Property())
-                            .addPropertyMethod(propertyMethod));
-            }
-        }
-
-        printHeader("Summary");
-        writer.println("- Packages: " + packagesToTypes.keySet().size());
-        writer.println("- Types: " + packagesToTypes.size());
-        writer.println("- Methods: " + typesToMethods.size());
-        writer.println("- Properties: " + typesToProperties.values().stream().mapToInt(Map::size).sum());
-
-        printHeader("Setters without getters");
-        forEachProperty(typesToProperties, (type, propertyName, property) -> {
-            if (property.getter == null) {
-                property.setters.forEach(setter ->
-                    writer.printf("- `%s`%n", toSimpleSignature(setter))
-                );
-            }
-        });
-
-        var propertiesWithInconsistentSetters = new ArrayList<String>();
-        var propertiesWithAdditionalSetters = new ArrayList<String>();
-        forEachProperty(typesToProperties, (type, propertyName, property) -> {
-            // Ignore properties without a getter
-            if (property.getter == null) {
-                return;
-            }
-            ImmutableSet<TypeReference> types = property.collectTypes();
-            if (types.size() != 1) {
-                String inconsistentGetterDescription = String.format("- `%s` (setter: %s)",
-                    toSimpleSignature(property.getter),
-                    types.stream().filter(Predicate.not(property.getter.getReturnType()::equals))
-                        .map(ReportGenerator::toSimpleName)
-                        .map("`%s`"::formatted)
-                        .collect(Collectors.joining(", ")));
-
-                property.matchingGetterAndSetterType()
-                    .ifPresentOrElse(
-                        matchingType -> propertiesWithAdditionalSetters.add(inconsistentGetterDescription),
-                        () -> propertiesWithInconsistentSetters.add(inconsistentGetterDescription)
-                    );
-            }
-        });
-
-        printHeader("Properties with inconsistent getter/setter types");
-        propertiesWithInconsistentSetters.forEach(writer::println);
-
-        printHeader("Properties with consistent getter/setter types, but with additional setter types");
-        propertiesWithAdditionalSetters.forEach(writer::println);
-
-        printHeader("Properties with `propertyName()` setters");
-        forEachProperty(typesToProperties, (type, propertyName, property) ->
-            typesToMethods.get(type).stream()
-                .filter(Predicate.not(IMethod::isStatic))
-                .filter(method -> method.getNumberOfParameters() == 2)
-                .filter(method -> method.getName().toString().equals(propertyName))
-                .filter(method -> {
-                    TypeReference parameterType = method.getParameterType(1);
-                    return !parameterType.getName().toString().equals("Lgroovy/lang/Closure")
-                           && !parameterType.getName().toString().equals("Lorg/gradle/api/Action");
-                })
-                .findFirst()
-                .ifPresent(weirdSetter -> writer.printf("- `%s`%n", toSimpleSignature(weirdSetter))));
-
-        printHeader("Fluent setters");
-        forEachProperty(typesToProperties, (type, propertyName, property) ->
-            property.setters.stream()
-                .filter(setter -> !setter.getReturnType().equals(TypeReference.Void))
-                .forEach(setter -> writer.printf("- `%s`%n", toSimpleSignature(setter)))
-        );
-
-        printHeader("Lazy properties with non-abstract getters");
-        IClass providerType = hierarchy.lookupClass(TypeReference.findOrCreate(ClassLoaderReference.Application, "Lorg/gradle/api/provider/Provider"));
-        // TODO This should probably be FileCollection to match Provider
-        IClass configurableFileCollectionType = hierarchy.lookupClass(TypeReference.findOrCreate(ClassLoaderReference.Application, "Lorg/gradle/api/file/ConfigurableFileCollection"));
-        forEachProperty(typesToProperties, (type, propertyName, property) -> {
-            if (property.getter == null) {
-                return;
-            }
-            if (type.isInterface()) {
-                return;
-            }
-            if (property.getter.isAbstract()) {
-                return;
-            }
-            IClass getterType = hierarchy.lookupClass(property.getter.getReturnType());
-            if (getterType == null) {
-                return;
-            }
-            if (hierarchy.isAssignableFrom(providerType, getterType)
-                || hierarchy.isAssignableFrom(configurableFileCollectionType, getterType)) {
-                writer.printf("- `%s`%n", toSimpleSignature(property.getter));
-            }
-        });
+    public ReportGenerator(ApiModelLoader modelLoader, ReportFormat format, PrintWriter writer, Profiler profiler) {
+        this(modelLoader, format, writer, profiler, null);
     }
 
-    private static boolean hasDeprecatedAnnotation(Collection<Annotation> annotations) {
-        return annotations.stream()
-            .map(Annotation::getType)
-            .map(TypeReference::getName)
-            .map(TypeName::toString)
-            .anyMatch("Ljava/lang/Deprecated"::equals);
-    }
-
-    private void printHeader(String header) {
-        writer.println();
-        writer.println("## " + header);
-        writer.println();
-    }
-
-    private static void forEachProperty(Map<IClass, Map<String, Property>> properties, TriConsumer<IClass, String, Property> consumer) {
-        properties.forEach((iClass, classProperties) -> classProperties.forEach((propertyName, property) ->
-            consumer.accept(iClass, propertyName, property)));
-    }
-
-    private interface TriConsumer<T, U, V> {
-        void accept(T t, U u, V v);
-    }
-
-    private static String toSimpleSignature(IMethod method) {
-        // Get the class name
-        String className = toSimpleName(method.getDeclaringClass().getReference());
-
-        // Get the method name
-        String methodName = method.getName().toString();
-
-        // Get the parameter types
-        String parameterTypes = Stream.iterate(method.isStatic() ? 0 : 1, i -> i < method.getNumberOfParameters(), i -> i + 1)
-            .map(method::getParameterType)
-            .map(ReportGenerator::toSimpleName)
-            .collect(Collectors.joining(", "));
-
-        // Get the return type
-        String returnType = toSimpleName(method.getReturnType());
-
-        return String.format("%s %s.%s(%s)", returnType, className, methodName, parameterTypes);
-    }
-
-    private static String toSimpleName(TypeReference typeReference) {
-        String simpleName = toSimpleTypeName(typeReference);
-        if (typeReference.isArrayType()) {
-            return toSimpleName(typeReference.getArrayElementType()) + "[]";
-        } else {
-            return simpleName;
-        }
+    /**
+     * @param modelConsumer receives the whole model once it is loaded, before the rules are applied; not supported in pipeline mode
+     */
+    public ReportGenerator(ApiModelLoader modelLoader, ReportFormat format, PrintWriter writer, Profiler profiler, @Nullable ApiModelExtractor.ApiModelConsumer modelConsumer) {
+        this.modelLoader = modelLoader;
+        this.format = format;
+        this.writer = writer;
+        this.profiler = profiler;
+        this.modelConsumer = modelConsumer;
     }
 
-    private static String toSimpleTypeName(TypeReference typeReference) {
-        if (typeReference.equals(TypeReference.Void)) {
-            return "void";
-        }
-        if (typeReference.isPrimitiveType()) {
-            if (typeReference.equals(TypeReference.Byte)) {
-                return "byte";
-            }
-            if (typeReference.equals(TypeReference.Char)) {
-                return "char";
-            }
-            if (typeReference.equals(TypeReference.Double)) {
-                return "double";
-            }
-            if (typeReference.equals(TypeReference.Float)) {
-                return "float";
-            }
-            if (typeReference.equals(TypeReference.Int)) {
-                return "int";
-            }
-            if (typeReference.equals(TypeReference.Long)) {
-                return "long";
-            }
-            if (typeReference.equals(TypeReference.Short)) {
-                return "short";
-            }
-            if (typeReference.equals(TypeReference.Boolean)) {
-                return "boolean";
+    /**
+     * Applies the rules to the model and writes the summary and the findings of each rule as a section.
+     * <p>
+     * The findings are encoded into a fragment per section while the rules are applied. In pipeline mode the model
+     * is loaded one package at a time and the fragments are spilled to temporary files, so that neither the whole model
+     * nor all findings have to be held in memory; the fragments are then merged in section order.
+     */
+    public void generateReport() throws IOException, ClassHierarchyException {
+        ImmutableList<ReportRule> rules = loadRules();
+        ReportEncoder encoder = ReportEncoder.create(format, rules);
+        // Timing every rule for every property is too costly to do unless the profile is written
+        long[] checkNanosPerRule = profiler.isEnabled() ? new long[rules.size()] : null;
+        ReportSummary summary = new ReportSummary(rules.size());
+        try (SectionFragments fragments = modelLoader.isPipeline() ? SectionFragments.spilled(rules.size(), format) : SectionFragments.inMemory(rules.size())) {
+            try {
+                if (modelLoader.isPipeline()) {
+                    if (modelConsumer != null) {
+                        throw new IllegalArgumentException("The whole model is not available in pipeline mode");
+                    }
+                    try (var ignored = profiler.start("Package pipeline")) {
+                        modelLoader.loadByPackage(model -> {
+                            summary.add(model);
+                            applyRules(model, rules, encoder, fragments, summary, checkNanosPerRule);
+                        });
+                    }
+                } else {
+                    ApiModel model;
+                    try (var ignored = profiler.start("Load model")) {
+                        model = modelLoader.load();
+                    }
+                    if (modelConsumer != null) {
+                        modelConsumer.accept(model);
+                    }
+                    summary.add(model);
+                    try (var ignored = profiler.start("Rules")) {
+                        applyRules(model, rules, encoder, fragments, summary, checkNanosPerRule);
+                    }
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
             }
-        }
-        String name = typeReference.getName().toString();
-        // Remove package part if present
-        if (name.contains("/")) {
-            name = name.substring(name.lastIndexOf('/') + 1);
-        }
-        return name.replace(';', ' ').trim();
-    }
 
-    private sealed interface PropertyMethod {
-        String propertyName();
+            encoder.writeHead(writer, summary);
+            profiler.count("properties", summary.getPropertyCount());
 
-        static Optional<PropertyMethod> from(IMethod method) {
-            if (method.isStatic()) {
-                return Optional.empty();
-            }
-            String methodName = method.getName().toString();
-            if (method.getNumberOfParameters() == 1 && !method.getReturnType().equals(TypeReference.Void)) {
-                if (methodName.startsWith("get") && methodName.length() > 3) {
-                    return Optional.of(new Getter(getPropertyName(methodName, 3), method));
+            for (int i = 0; i < rules.size(); i++) {
+                ReportRule rule = rules.get(i);
+                if (checkNanosPerRule != null) {
+                    profiler.record("rules." + rule.getId() + ".checkTimeMillis", checkNanosPerRule[i] / 1_000_000.0);
                 }
-                if (methodName.startsWith("is") && methodName.length() > 2) {
-                    return Optional.of(new Getter(getPropertyName(methodName, 2), method));
+                profiler.count("rules." + rule.getId() + ".findings", summary.getFindingCount(i));
+                try (var ignored = profiler.start("Section: " + rule.getTitle())) {
+                    encoder.writeSection(writer, i, summary, fragments);
                 }
             }
-            if (method.getNumberOfParameters() == 2 && methodName.startsWith("set") && methodName.length() > 3) {
-                return Optional.of(new Setter(getPropertyName(methodName, 3), method));
-            }
-            return Optional.empty();
+            encoder.writeTail(writer, summary);
         }
     }
 
-    private static String getPropertyName(String methodName, int prefixLength) {
-        return Character.toLowerCase(methodName.charAt(prefixLength)) + methodName.substring(prefixLength + 1);
-    }
-
-    private record Getter(String propertyName, IMethod method) implements PropertyMethod {
-    }
-
-    private record Setter(String propertyName, IMethod method) implements PropertyMethod {
-    }
-
-    private static class Property {
-        private IMethod getter;
-        private final List<IMethod> setters = new ArrayList<>();
-
-        public void addPropertyMethod(PropertyMethod propertyMethod) {
-            switch (propertyMethod) {
-                case Getter getterMethod -> this.getter = getterMethod.method();
-                case Setter setterMethod -> this.setters.add(setterMethod.method());
-            }
+    /**
+     * Applies all rules in a single pass over the properties, encoding the findings into the fragment of each rule.
+     */
+    private static void applyRules(ApiModel model, ImmutableList<ReportRule> rules, ReportEncoder encoder, SectionFragments fragments, ReportSummary summary, @Nullable long[] checkNanosPerRule) {
+        List<Consumer<Finding>> findingConsumers = new ArrayList<>(rules.size());
+        for (int i = 0; i < rules.size(); i++) {
+            int ruleIndex = i;
+            Writer fragment = fragments.getWriter(ruleIndex);
+            findingConsumers.add(reportOnce(model, finding -> {
+                try {
+                    encoder.encodeFinding(fragment, ruleIndex, finding);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                summary.addFinding(ruleIndex);
+            }));
         }
-
-        public ImmutableSet<TypeReference> collectTypes() {
-            return Stream.concat(
-                    Stream.ofNullable(getter)
-                        .map(IMethod::getReturnType),
-                    setters.stream()
-                        .map(method -> method.getParameterType(1))
-                )
-                .collect(ImmutableSet.toImmutableSet());
+        for (int typeId = 0; typeId < model.getTypeCount(); typeId++) {
+            checkType(model, typeId, rules, findingConsumers, encoder.getRenderer(), checkNanosPerRule);
         }
+    }
 
-        public Optional<TypeReference> matchingGetterAndSetterType() {
-            if (getter == null) {
-                return Optional.empty();
+    /**
+     * Returns a consumer passing each finding of a rule to the given consumer only once.
+     */
+    static Consumer<Finding> reportOnce(ApiModel model, Consumer<Finding> findingConsumer) {
+        if (!model.isInheritedProperties()) {
+            return findingConsumer;
+        }
+        // An inherited method can be reported again for a subtype that adds to its property
+        Set<Finding> reported = new HashSet<>();
+        return finding -> {
+            if (reported.add(finding)) {
+                findingConsumer.accept(finding);
+            }
+        };
+    }
+
+    /**
+     * Applies all rules to the properties of a single type, reporting the findings of each rule to its consumer.
+     * The time spent in each rule is added to {@code checkNanosPerRule} if given.
+     */
+    static void checkType(ApiModel model, int typeId, List<ReportRule> rules, List<Consumer<Finding>> findingConsumers, SignatureRenderer renderer, @Nullable long[] checkNanosPerRule) {
+        PropertyContext context = new PropertyContext(model, typeId, renderer);
+        for (int propertyId = model.getFirstPropertyId(typeId); propertyId < model.getEndPropertyId(typeId); propertyId++) {
+            context.moveTo(propertyId);
+            for (int i = 0; i < rules.size(); i++) {
+                if (checkNanosPerRule == null) {
+                    rules.get(i).checkProperty(context, findingConsumers.get(i));
+                } else {
+                    long start = System.nanoTime();
+                    rules.get(i).checkProperty(context, findingConsumers.get(i));
+                    checkNanosPerRule[i] += System.nanoTime() - start;
+                }
             }
-            TypeReference getterType = getter.getReturnType();
-            return setters.stream()
-                .map(method -> method.getParameterType(1))
-                .filter(setterType -> setterType.equals(getterType))
-                .findFirst();
         }
     }
 
-    private static AnalysisScope createScope(Collection<File> classpath) throws IOException {
-        AnalysisScope scope = AnalysisScopeReader.instance.makePrimordialScope(null);
-        classpath.forEach(classpathEntry -> addToScope(scope, classpathEntry));
-        return scope;
-    }
-
-    private static void addToScope(AnalysisScope scope, File classpathEntry) {
-        ClassLoaderReference loader = scope.getLoader(AnalysisScope.APPLICATION);
-        if (Files.isRegularFile(classpathEntry.toPath())) {
-            try {
-                JarFile jar = new JarFile(classpathEntry, false);
-                scope.addToScope(loader, jar);
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
-        } else {
-            scope.addToScope(loader, new BinaryDirectoryTreeModule(classpathEntry));
-        }
+    static ImmutableList<ReportRule> loadRules() {
+        return ImmutableList.<ReportRule>builder()
+            .addAll(BuiltInRules.all())
+            .addAll(ServiceLoader.load(ReportRule.class))
+            .build();
     }
 }
@@ -0,0 +1,27 @@
+package org.gradle.research;
+
+import java.util.function.Consumer;
+
+/**
+ * A check that produces one section of the report.
+ * <p>
+ * All rules are applied in a single traversal over the properties of the API.
+ * Rules built into the analyzer are listed in {@link BuiltInRules};
+ * additional rules are discovered via {@link java.util.ServiceLoader} and are reported after the built-in ones.
+ */
+public interface ReportRule {
+    /**
+     * A stable identifier of the rule.
+     */
+    String getId();
+
+    /**
+     * The title of the report section the findings of the rule are listed in.
+     */
+    String getTitle();
+
+    /**
+     * Checks a single property of a type, reporting problems to the given consumer.
+     */
+    void checkProperty(PropertyContext context, Consumer<Finding> findings);
+}
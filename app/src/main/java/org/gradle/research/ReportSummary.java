@@ -0,0 +1,47 @@
+package org.gradle.research;
+
+/**
+ * The sizes of the analyzed API and the number of findings per rule, summed over the models the API was loaded as.
+ */
+class ReportSummary {
+    private final int[] findingCounts;
+    private int packageCount;
+    private int typeCount;
+    private int methodCount;
+    private int propertyCount;
+
+    public ReportSummary(int ruleCount) {
+        this.findingCounts = new int[ruleCount];
+    }
+
+    public void add(ApiModel model) {
+        packageCount += model.getPackageCount();
+        typeCount += model.getTypeCount();
+        methodCount += model.getMethodCount();
+        propertyCount += model.getPropertyCount();
+    }
+
+    public void addFinding(int ruleIndex) {
+        findingCounts[ruleIndex]++;
+    }
+
+    public int getPackageCount() {
+        return packageCount;
+    }
+
+    public int getTypeCount() {
+        return typeCount;
+    }
+
+    public int getMethodCount() {
+        return methodCount;
+    }
+
+    public int getPropertyCount() {
+        return propertyCount;
+    }
+
+    public int getFindingCount(int ruleIndex) {
+        return findingCounts[ruleIndex];
+    }
+}
@@ -0,0 +1,61 @@
+package org.gradle.research;
+
+import com.google.common.io.Closer;
+import com.ibm.wala.classLoader.Module;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the modules of recently used JARs open, so that repeated analyses of the same JARs don't reopen them.
+ * <p>
+ * A JAR is identified by its path, size and modification time, so a changed JAR is reopened.
+ * Directories are not kept, as their contents change between compilations.
+ * The least recently used JARs are closed by {@link #trim()}, which must only be called when no analysis is running.
+ */
+class ResidentModules implements ClasspathModules {
+    private final int maximumSize;
+    private final Map<ModuleKey, ResidentModule> modules = new LinkedHashMap<>(16, 0.75f, true);
+
+    public ResidentModules(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    @Override
+    public synchronized Module open(File classpathEntry, Closer closer) throws IOException {
+        if (!Files.isRegularFile(classpathEntry.toPath())) {
+            return DEFAULT.open(classpathEntry, closer);
+        }
+        ModuleKey key = new ModuleKey(classpathEntry.getAbsolutePath(), classpathEntry.length(), classpathEntry.lastModified());
+        ResidentModule module = modules.get(key);
+        if (module == null) {
+            // Resident modules outlive the analysis that opened them
+            Closer moduleCloser = Closer.create();
+            module = new ResidentModule(DEFAULT.open(classpathEntry, moduleCloser), moduleCloser);
+            modules.put(key, module);
+        }
+        return module.module();
+    }
+
+    /**
+     * Closes the least recently used modules above the maximum size.
+     */
+    public synchronized void trim() throws IOException {
+        Iterator<ResidentModule> iterator = modules.values().iterator();
+        while (modules.size() > maximumSize && iterator.hasNext()) {
+            ResidentModule module = iterator.next();
+            iterator.remove();
+            module.closer().close();
+        }
+    }
+
+    private record ModuleKey(String path, long size, long lastModified) {
+    }
+
+    private record ResidentModule(Module module, Closer closer) {
+    }
+}
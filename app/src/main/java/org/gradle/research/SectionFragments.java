@@ -0,0 +1,120 @@
+package org.gradle.research;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The formatted findings of each report section, collected while the model is analyzed and written out section by section at the end.
+ * <p>
+ * Fragments are either kept in memory, or spilled to temporary files when the report is generated one package at a time,
+ * so that memory use does not grow with the number of findings.
+ */
+abstract class SectionFragments implements Closeable {
+    public static SectionFragments inMemory(int sectionCount) {
+        return new InMemory(sectionCount);
+    }
+
+    public static SectionFragments spilled(int sectionCount, ReportFormat format) throws IOException {
+        return new Spilled(sectionCount, format);
+    }
+
+    /**
+     * Returns the writer appending to the fragment of the given section.
+     */
+    public abstract PrintWriter getWriter(int section);
+
+    /**
+     * Writes the fragment of the given section to the writer.
+     */
+    public abstract void transferTo(int section, Writer writer) throws IOException;
+
+    private static class InMemory extends SectionFragments {
+        private final StringWriter[] buffers;
+        private final PrintWriter[] writers;
+
+        public InMemory(int sectionCount) {
+            this.buffers = new StringWriter[sectionCount];
+            this.writers = new PrintWriter[sectionCount];
+            for (int section = 0; section < sectionCount; section++) {
+                buffers[section] = new StringWriter();
+                writers[section] = new PrintWriter(buffers[section]);
+            }
+        }
+
+        @Override
+        public PrintWriter getWriter(int section) {
+            return writers[section];
+        }
+
+        @Override
+        public void transferTo(int section, Writer writer) throws IOException {
+            writer.append(buffers[section].getBuffer());
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class Spilled extends SectionFragments {
+        private final Path directory;
+        private final Path[] files;
+        private final PrintWriter[] writers;
+
+        public Spilled(int sectionCount, ReportFormat format) throws IOException {
+            this.directory = Files.createTempDirectory("public-api-report");
+            this.files = new Path[sectionCount];
+            this.writers = new PrintWriter[sectionCount];
+            String extension = switch (format) {
+                case MARKDOWN -> ".md";
+                case JSONL -> ".jsonl";
+                case SARIF -> ".sarif";
+            };
+            try {
+                for (int section = 0; section < sectionCount; section++) {
+                    files[section] = directory.resolve("section-" + section + extension);
+                    writers[section] = new PrintWriter(Files.newBufferedWriter(files[section], StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public PrintWriter getWriter(int section) {
+            return writers[section];
+        }
+
+        @Override
+        public void transferTo(int section, Writer writer) throws IOException {
+            // PrintWriter swallows exceptions, so check whether spilling failed
+            if (writers[section].checkError()) {
+                throw new IOException("Failed to write spill file " + files[section]);
+            }
+            try (Reader reader = Files.newBufferedReader(files[section], StandardCharsets.UTF_8)) {
+                reader.transferTo(writer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (PrintWriter writer : writers) {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+            MoreFiles.deleteRecursively(directory, RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+    }
+}
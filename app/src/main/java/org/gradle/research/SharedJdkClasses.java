@@ -0,0 +1,199 @@
+package org.gradle.research;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.ibm.wala.classLoader.Module;
+import com.ibm.wala.classLoader.ModuleEntry;
+import com.ibm.wala.core.util.config.AnalysisScopeReader;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.types.ClassLoaderReference;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares the class files of the JDK between class hierarchies.
+ * <p>
+ * Every hierarchy still gets its own primordial class loader: WALA's loaders and the classes they load reference the hierarchy
+ * they were created for, so a shared loader would keep the first hierarchy alive, and they are not safe to use from hierarchies
+ * built concurrently. What is shared are the modules the JDK classes are read from. They are opened once, and the bytes
+ * of every JDK class file read by a hierarchy are kept, so later hierarchies skip reading them from the runtime image.
+ * Nothing shared refers to a hierarchy, so each hierarchy can be garbage collected once its model has been extracted.
+ * <p>
+ * The kept bytes are never released. Once they reach the limit given on creation, further class files are read from
+ * the runtime image by every hierarchy again.
+ */
+class SharedJdkClasses {
+    private final long maxRetainedBytes;
+    private final AtomicLong retainedBytes = new AtomicLong();
+    @Nullable
+    private ImmutableList<Module> modules;
+
+    public SharedJdkClasses() {
+        this(Long.MAX_VALUE);
+    }
+
+    public SharedJdkClasses(long maxRetainedBytes) {
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    /**
+     * Returns the number of bytes of JDK class files kept so far.
+     */
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    /**
+     * Returns a scope containing the shared JDK modules as its primordial modules.
+     */
+    public AnalysisScope createScope() throws IOException {
+        AnalysisScope scope = AnalysisScope.createJavaAnalysisScope();
+        for (Module module : getModules()) {
+            scope.addToScope(ClassLoaderReference.Primordial, module);
+        }
+        return scope;
+    }
+
+    private synchronized ImmutableList<Module> getModules() throws IOException {
+        if (modules == null) {
+            modules = AnalysisScopeReader.instance.makePrimordialScope(null).getModules(ClassLoaderReference.Primordial).stream()
+                .<Module>map(module -> new CachingModule(this, module))
+                .collect(ImmutableList.toImmutableList());
+        }
+        return modules;
+    }
+
+    /**
+     * Counts the given number of bytes as kept, unless that would exceed the limit.
+     */
+    private boolean retain(int length) {
+        long previous = retainedBytes.getAndAccumulate(length, (retained, added) -> retained + added <= maxRetainedBytes ? retained + added : retained);
+        return previous + length <= maxRetainedBytes;
+    }
+
+    /**
+     * A module that lists the entries of a JDK module once and keeps the bytes of the entries that have been read.
+     */
+    private static class CachingModule implements Module {
+        private final SharedJdkClasses owner;
+        private final Module delegate;
+        @Nullable
+        private volatile ImmutableList<CachingEntry> entries;
+
+        public CachingModule(SharedJdkClasses owner, Module delegate) {
+            this.owner = owner;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Iterator<CachingEntry> getEntries() {
+            ImmutableList<CachingEntry> entries = this.entries;
+            if (entries == null) {
+                synchronized (this) {
+                    entries = this.entries;
+                    if (entries == null) {
+                        ImmutableList.Builder<CachingEntry> builder = ImmutableList.builder();
+                        delegate.getEntries().forEachRemaining(entry -> builder.add(new CachingEntry(this, entry)));
+                        entries = builder.build();
+                        this.entries = entries;
+                    }
+                }
+            }
+            return entries.iterator();
+        }
+
+        @Override
+        public String toString() {
+            return "Shared:" + delegate;
+        }
+    }
+
+    private static class CachingEntry implements ModuleEntry {
+        private final CachingModule container;
+        private final ModuleEntry delegate;
+        @Nullable
+        private volatile byte[] bytes;
+        @Nullable
+        private volatile Module nestedModule;
+
+        public CachingEntry(CachingModule container, ModuleEntry delegate) {
+            this.container = container;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public boolean isClassFile() {
+            return delegate.isClassFile();
+        }
+
+        @Override
+        public boolean isSourceFile() {
+            return delegate.isSourceFile();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            byte[] bytes = this.bytes;
+            if (bytes == null) {
+                // Concurrent hierarchies may both read the entry; only the first copy is kept and counted
+                try (InputStream input = delegate.getInputStream()) {
+                    bytes = ByteStreams.toByteArray(input);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                synchronized (this) {
+                    if (this.bytes == null && container.owner.retain(bytes.length)) {
+                        this.bytes = bytes;
+                    }
+                }
+            }
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public boolean isModuleFile() {
+            return delegate.isModuleFile();
+        }
+
+        @Override
+        public Module asModule() {
+            Module nestedModule = this.nestedModule;
+            if (nestedModule == null) {
+                synchronized (this) {
+                    nestedModule = this.nestedModule;
+                    if (nestedModule == null) {
+                        nestedModule = new CachingModule(container.owner, delegate.asModule());
+                        this.nestedModule = nestedModule;
+                    }
+                }
+            }
+            return nestedModule;
+        }
+
+        @Override
+        public String getClassName() {
+            return delegate.getClassName();
+        }
+
+        @Override
+        public Module getContainer() {
+            return container;
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+}
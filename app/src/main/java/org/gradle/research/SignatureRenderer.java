@@ -0,0 +1,86 @@
+package org.gradle.research;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Renders the simple signatures and type names printed for findings, e.g. {@code void Project.setVersion(Object)}.
+ * <p>
+ * The same few types, like {@code Provider} or {@code File}, appear in the signatures of thousands of findings,
+ * so simple names are cached by type name. Signatures are rendered once per finding; a method is only rendered again
+ * when several rules report it, e.g. a fluent setter without a getter, so signatures are not cached, but assembled in a reusable builder.
+ * Not thread-safe; a renderer is meant to be used for a single report.
+ */
+class SignatureRenderer {
+    private final Map<String, String> simpleNames = new HashMap<>();
+    private final StringBuilder builder = new StringBuilder();
+
+    public String getSimpleSignature(ApiMethod method) {
+        builder.setLength(0);
+        builder.append(getSimpleName(method.returnType()))
+            .append(' ')
+            .append(getSimpleName(method.declaringType()))
+            .append('.')
+            .append(method.name())
+            .append('(');
+        for (int i = 0; i < method.getNumberOfParameters(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(getSimpleName(method.getParameterType(i)));
+        }
+        return builder.append(')').toString();
+    }
+
+    public String getSimpleName(String typeName) {
+        String simpleName = simpleNames.get(typeName);
+        if (simpleName == null) {
+            simpleName = renderSimpleName(typeName);
+            simpleNames.put(typeName, simpleName);
+        }
+        return simpleName;
+    }
+
+    /**
+     * Renders a type name without caching, e.g. {@code String[]} for {@code [Ljava/lang/String} or {@code int} for {@code I}.
+     */
+    public static String renderSimpleName(String typeName) {
+        StringBuilder simpleName = new StringBuilder(typeName.length());
+        appendSimpleName(simpleName, typeName);
+        return simpleName.toString();
+    }
+
+    private static void appendSimpleName(StringBuilder builder, String typeName) {
+        int dimensions = 0;
+        while (typeName.charAt(dimensions) == '[') {
+            dimensions++;
+        }
+        String keyword = typeName.length() == dimensions + 1 ? primitiveKeyword(typeName.charAt(dimensions)) : null;
+        if (keyword != null) {
+            builder.append(keyword);
+        } else {
+            // Remove the package part if present
+            int start = Math.max(typeName.lastIndexOf('/') + 1, dimensions);
+            int end = typeName.endsWith(";") ? typeName.length() - 1 : typeName.length();
+            builder.append(typeName, start, end);
+        }
+        for (int i = 0; i < dimensions; i++) {
+            builder.append("[]");
+        }
+    }
+
+    private static String primitiveKeyword(char descriptor) {
+        return switch (descriptor) {
+            case 'V' -> "void";
+            case 'B' -> "byte";
+            case 'C' -> "char";
+            case 'D' -> "double";
+            case 'F' -> "float";
+            case 'I' -> "int";
+            case 'J' -> "long";
+            case 'S' -> "short";
+            case 'Z' -> "boolean";
+            default -> null;
+        };
+    }
+}
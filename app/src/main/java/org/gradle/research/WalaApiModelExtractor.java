@@ -0,0 +1,216 @@
+package org.gradle.research;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Closer;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.core.util.config.AnalysisScopeReader;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.TypeName;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.types.annotations.Annotation;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Extracts an {@link ApiModel} from a classpath by building a WALA class hierarchy.
+ */
+class WalaApiModelExtractor implements ApiModelExtractor {
+    private static final TypeName DEPRECATED_TYPE_NAME = TypeName.findOrCreate("Ljava/lang/Deprecated");
+
+    private final ApiTypeFilter apiTypeFilter;
+    private final boolean ignoreDeprecated;
+    private final boolean inheritedProperties;
+    private final int threads;
+    private final boolean pruneScope;
+    private final ImmutableList<String> lazyRootTypes;
+    private final AnalysisEnvironment environment;
+    private final Profiler profiler;
+
+    public WalaApiModelExtractor(ApiTypeFilter apiTypeFilter, AnalysisOptions options, AnalysisEnvironment environment, Profiler profiler) {
+        this.apiTypeFilter = apiTypeFilter;
+        this.ignoreDeprecated = options.isIgnoreDeprecated();
+        this.inheritedProperties = options.isInherited();
+        // A single thread extracts on the calling thread
+        this.threads = options.getThreads();
+        // Exclude the classes that are not needed for the analysis from the class hierarchy
+        this.pruneScope = !options.isLoadAllClasses();
+        this.lazyRootTypes = ApiModelExtractor.lazyRootTypes(options);
+        this.environment = environment;
+        this.profiler = profiler;
+    }
+
+    @Override
+    public ApiModel extract(List<File> classpath) throws IOException, ClassHierarchyException {
+        // The modules are closed once the model has been extracted, as nothing reads from the class hierarchy after that
+        try (Closer closer = Closer.create()) {
+            AnalysisScope scope = createScope(classpath, environment.jdkClasses(), environment.modules(), closer, profiler);
+            if (pruneScope) {
+                try (var ignored = profiler.start("Scope exclusions")) {
+                    ApiScopeExclusions exclusions = ApiScopeExclusions.scan(classpath, apiTypeFilter, lazyRootTypes);
+                    profiler.count("excludedClasses", exclusions.getExcludedCount());
+                    scope.setExclusions(exclusions);
+                }
+            }
+            ClassHierarchy hierarchy;
+            try (var ignored = profiler.start("Class hierarchy")) {
+                hierarchy = ClassHierarchyFactory.make(scope);
+            }
+            profiler.count("classes", hierarchy.getNumberOfClasses());
+
+            // The position of a class in this list is its ID in the lazy type index
+            List<IClass> classes = new ArrayList<>(hierarchy.getNumberOfClasses());
+            hierarchy.forEach(classes::add);
+
+            ImmutableList<ApiType> types;
+            try (var ignored = profiler.start("Type extraction"); ForkJoinPool pool = ApiModelExtractor.createExtractionPool(threads)) {
+                types = ApiModelExtractor.extractTypes(classes, this::extractTypeIfIncluded, pool);
+            }
+            profiler.count("types", types.size());
+            profiler.count("methods", types.stream().mapToInt(type -> type.methods().size()).sum());
+
+            try (var ignored = profiler.start("Lazy types")) {
+                return new ApiModel(types, findLazyTypes(hierarchy, classes, ApiModelExtractor.collectGetterTypes(types, inheritedProperties)), inheritedProperties);
+            }
+        }
+    }
+
+    private Optional<ApiType> extractTypeIfIncluded(IClass iClass) {
+        // Skip non-public types
+        if (!iClass.isPublic()) {
+            return Optional.empty();
+        }
+        // Skip anonymous inner classes
+        if (iClass.getName().getClassName().toString().contains("$")) {
+            return Optional.empty();
+        }
+        // Skip internal APIs
+        if (!apiTypeFilter.includeType(iClass)) {
+            return Optional.empty();
+        }
+        // Skip deprecated types
+        if (ignoreDeprecated && hasDeprecatedAnnotation(iClass.getAnnotations())) {
+            return Optional.empty();
+        }
+        return Optional.of(extractType(iClass));
+    }
+
+    private ApiType extractType(IClass iClass) {
+        ImmutableList.Builder<ApiMethod> methods = ImmutableList.builder();
+        for (IMethod declaredMethod : iClass.getDeclaredMethods()) {
+            if (!declaredMethod.isPublic()) {
+                continue;
+            }
+            // Skip deprecated methods
+            if (ignoreDeprecated && hasDeprecatedAnnotation(declaredMethod.getAnnotations())) {
+                continue;
+            }
+            methods.add(toApiMethod(declaredMethod));
+        }
+        ImmutableList.Builder<String> supertypes = ImmutableList.builder();
+        if (iClass.getSuperclass() != null) {
+            supertypes.add(iClass.getSuperclass().getName().toString());
+        }
+        iClass.getDirectInterfaces().forEach(supertype -> supertypes.add(supertype.getName().toString()));
+        return new ApiType(iClass.getName().toString(), iClass.isInterface(), supertypes.build(), methods.build());
+    }
+
+    private static ApiMethod toApiMethod(IMethod method) {
+        ImmutableList.Builder<String> parameterTypes = ImmutableList.builder();
+        for (int i = method.isStatic() ? 0 : 1; i < method.getNumberOfParameters(); i++) {
+            parameterTypes.add(method.getParameterType(i).getName().toString());
+        }
+        return new ApiMethod(
+            method.getDeclaringClass().getName().toString(),
+            method.getName().toString(),
+            parameterTypes.build(),
+            method.getReturnType().getName().toString(),
+            method.isStatic(),
+            method.isAbstract()
+        );
+    }
+
+    private ImmutableSet<String> findLazyTypes(ClassHierarchy hierarchy, List<IClass> classes, Collection<String> candidateTypes) {
+        Map<IClass, Integer> classIds = new IdentityHashMap<>(classes.size());
+        for (int i = 0; i < classes.size(); i++) {
+            classIds.put(classes.get(i), i);
+        }
+        int[] rootIds = lazyRootTypes.stream()
+            .map(rootType -> lookupClass(hierarchy, rootType))
+            .filter(Objects::nonNull)
+            .mapToInt(classIds::get)
+            .toArray();
+        LazyTypeIndex index = new LazyTypeIndex(rootIds, classId -> {
+            IClass iClass = classes.get(classId);
+            return Stream.concat(Stream.ofNullable(iClass.getSuperclass()), iClass.getDirectInterfaces().stream())
+                .map(classIds::get)
+                .filter(Objects::nonNull)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        });
+        ImmutableSet<String> lazyTypes = candidateTypes.stream()
+            .filter(candidateType -> {
+                IClass getterType = lookupClass(hierarchy, candidateType);
+                return getterType != null && index.isLazy(classIds.get(getterType));
+            })
+            .collect(ImmutableSet.toImmutableSet());
+        profiler.count("lazySubtypes", index.getLazyCount());
+        return lazyTypes;
+    }
+
+    private static IClass lookupClass(ClassHierarchy hierarchy, String typeName) {
+        return hierarchy.lookupClass(TypeReference.findOrCreate(ClassLoaderReference.Application, typeName));
+    }
+
+    private static boolean hasDeprecatedAnnotation(Collection<Annotation> annotations) {
+        for (Annotation annotation : annotations) {
+            // Type names are interned; the type references of annotations depend on the loader of the annotated class
+            if (annotation.getType().getName() == DEPRECATED_TYPE_NAME) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static AnalysisScope createScope(Collection<File> classpath, ClasspathModules modules, Closer closer) throws IOException {
+        return createScope(classpath, modules, closer, new Profiler());
+    }
+
+    static AnalysisScope createScope(Collection<File> classpath, ClasspathModules modules, Closer closer, Profiler profiler) throws IOException {
+        return createScope(classpath, null, modules, closer, profiler);
+    }
+
+    /**
+     * Creates a scope for the classpath, reading the JDK classes from the given shared JDK class files if present.
+     */
+    static AnalysisScope createScope(Collection<File> classpath, @Nullable SharedJdkClasses jdkClasses, ClasspathModules modules, Closer closer, Profiler profiler) throws IOException {
+        try (var ignored = profiler.start("Scope")) {
+            AnalysisScope scope = jdkClasses == null
+                ? AnalysisScopeReader.instance.makePrimordialScope(null)
+                : jdkClasses.createScope();
+            ClassLoaderReference loader = scope.getLoader(AnalysisScope.APPLICATION);
+            for (File classpathEntry : classpath) {
+                try (var ignoredEntry = profiler.start("Scope: " + classpathEntry.getName())) {
+                    scope.addToScope(loader, modules.open(classpathEntry, closer));
+                }
+            }
+            return scope;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package org.gradle.research;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApiIndexTest {
+    @TempDir
+    Path directory;
+
+    private ApiModel model;
+    private Path indexFile;
+    private ApiIndex index;
+
+    @BeforeEach
+    void writeIndex() throws Exception {
+        AnalysisOptions options = new AnalysisOptions(List.of(), List.of(), false, null, 1, false, List.of(), ExtractionBackend.FAST, false, false);
+        model = new ApiModelLoader(SampleApi.classpath(), options, new Profiler()).load();
+        indexFile = directory.resolve("sample.index");
+        ApiIndex.write(model, indexFile);
+        index = ApiIndex.open(indexFile);
+    }
+
+    @Test
+    void indexContainsTheModel() {
+        assertEquals(model.getTypeCount(), index.getTypeCount());
+        assertEquals(model.getMethodCount(), index.getMethodCount());
+        assertEquals(model.getPropertyCount(), index.getPropertyCount());
+        for (int typeId = 0; typeId < model.getTypeCount(); typeId++) {
+            ApiType type = model.getType(typeId);
+            assertEquals(type.name(), index.getString(index.getTypeName(typeId)));
+            assertEquals(type.packageName(), index.getString(index.getTypePackage(typeId)));
+            assertEquals(type.isInterface(), index.isInterface(typeId));
+            assertEquals(model.getFirstMethodId(typeId), index.getFirstMethodId(typeId));
+            assertEquals(model.getEndMethodId(typeId), index.getEndMethodId(typeId));
+            assertEquals(model.getFirstPropertyId(typeId), index.getFirstPropertyId(typeId));
+            assertEquals(model.getEndPropertyId(typeId), index.getEndPropertyId(typeId));
+        }
+        for (int methodId = 0; methodId < model.getMethodCount(); methodId++) {
+            ApiMethod method = model.getMethods().get(methodId);
+            assertEquals(method.name(), index.getString(index.getMethodName(methodId)));
+            assertEquals(method.returnType(), index.getString(index.getReturnType(methodId)));
+            assertEquals(method.getNumberOfParameters(), index.getNumberOfParameters(methodId));
+            for (int i = 0; i < method.getNumberOfParameters(); i++) {
+                assertEquals(method.getParameterType(i), index.getString(index.getParameterType(methodId, i)));
+            }
+            assertEquals(method.isStatic(), index.hasMethodFlag(methodId, ApiIndex.METHOD_STATIC));
+            assertEquals(method.isAbstract(), index.hasMethodFlag(methodId, ApiIndex.METHOD_ABSTRACT));
+            assertEquals(model.isLazyType(method.returnType()), index.hasMethodFlag(methodId, ApiIndex.METHOD_LAZY_RETURN));
+        }
+        for (int propertyId = 0; propertyId < model.getPropertyCount(); propertyId++) {
+            assertEquals(model.getPropertyName(propertyId), index.getString(index.getPropertyName(propertyId)));
+            assertEquals(model.getGetterId(propertyId), index.getGetterId(propertyId));
+            assertArrayEquals(model.getSetterIds(propertyId).toArray(), index.getSetterIds(propertyId));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 6, 40, 100})
+    void truncatedIndexCannotBeOpened(int length) throws IOException {
+        Path truncated = directory.resolve("truncated.index");
+        Files.write(truncated, Arrays.copyOf(Files.readAllBytes(indexFile), length));
+
+        assertThrows(IOException.class, () -> ApiIndex.open(truncated));
+    }
+
+    @Test
+    void indexWithoutLastPostingCannotBeOpened() throws IOException {
+        byte[] content = Files.readAllBytes(indexFile);
+        Path truncated = directory.resolve("truncated.index");
+        Files.write(truncated, Arrays.copyOf(content, content.length - Integer.BYTES));
+
+        assertThrows(IOException.class, () -> ApiIndex.open(truncated));
+    }
+
+    @Test
+    void fileWithoutHeaderCannotBeOpened() throws IOException {
+        Path other = directory.resolve("other.index");
+        Files.write(other, new byte[64]);
+
+        assertThrows(IOException.class, () -> ApiIndex.open(other));
+    }
+
+    @Test
+    void typesWithGettersReturningType() {
+        assertEquals(
+            Set.of("Lorg/gradle/api/sample/SampleExtension", "Lorg/gradle/api/sample/SampleTask", "Lorg/gradle/api/sample/SampleReportSpec"),
+            declaringTypes("kind:getter", "returns:Property"));
+    }
+
+    @Test
+    void settersWithParameterInPackage() {
+        assertEquals(
+            Set.of("SampleExtension.setVersion(Ljava/lang/Object)"),
+            methods("kind:setter", "param:Object", "package:org.gradle.api.sample"));
+    }
+
+    @Test
+    void intersectsPostings() {
+        // Both terms have posting lists, only the setter of the version property is in both
+        assertEquals(
+            Set.of("SampleExtension.setVersion(Ljava/lang/Object)"),
+            methods("param:Object", "package:org.gradle.api.sample"));
+        // The type parameter of Property.set(T) is erased to Object
+        assertEquals(
+            Set.of("Property.set(Ljava/lang/Object)"),
+            methods("param:Object", "package:org.gradle.api.provider"));
+        assertEquals(Set.of(), methods("param:Object", "package:org.gradle.api.file"));
+        assertEquals(Set.of(), methods("returns:Property", "param:Object"));
+    }
+
+    @Test
+    void simpleAndQualifiedNamesMatchTheSameType() {
+        assertEquals(methods("returns:Property"), methods("returns:org.gradle.api.provider.Property"));
+        assertEquals(methods("type:SampleTask"), methods("type:org.gradle.api.sample.SampleTask"));
+        assertEquals(Set.of(), methods("returns:org.gradle.api.Property"));
+    }
+
+    @Test
+    void arrayTypesAreConvertedToInternalForm() {
+        assertEquals(
+            Set.of("SampleTaskContainer.setTasks([Lorg/gradle/api/sample/SampleTask)"),
+            methods("param:org.gradle.api.sample.SampleTask[]"));
+        assertEquals(methods("param:SampleTask[]"), methods("param:org.gradle.api.sample.SampleTask[]"));
+        assertEquals(
+            Set.of("ConfigurableFileCollection.from([Ljava/lang/Object)"),
+            methods("param:java.lang.Object[]"));
+        assertEquals(Set.of(), methods("param:java.lang.Object[][]"));
+    }
+
+    @Test
+    void packageWildcardMatchesSubpackages() {
+        assertEquals(
+            Set.of("Lorg/gradle/api/file/ConfigurableFileCollection", "Lorg/gradle/api/file/FileCollection"),
+            declaringTypes("package:org.gradle.api.file"));
+        Set<String> apiTypes = declaringTypes("package:org.gradle.api.*");
+        assertTrue(apiTypes.containsAll(declaringTypes("package:org.gradle.api.file")), apiTypes::toString);
+        assertTrue(apiTypes.containsAll(declaringTypes("package:org.gradle.api.sample")), apiTypes::toString);
+        assertEquals(declaringTypes("package:org.gradle.api.sample"), declaringTypes("package:org.gradle.api.sample.*"));
+        // Only whole package names match
+        assertEquals(Set.of(), declaringTypes("package:org.gradle.api.sam.*"));
+        assertEquals(Set.of(), declaringTypes("package:org.gradle.api"));
+    }
+
+    private Set<String> declaringTypes(String... expression) {
+        return IntStream.of(IndexQuery.parse(List.of(expression)).findMethods(index))
+            .mapToObj(methodId -> index.getString(index.getTypeName(index.getMethodType(methodId))))
+            .collect(Collectors.toSet());
+    }
+
+    private Set<String> methods(String... expression) {
+        return IntStream.of(IndexQuery.parse(List.of(expression)).findMethods(index))
+            .mapToObj(this::describe)
+            .collect(Collectors.toSet());
+    }
+
+    private String describe(int methodId) {
+        String typeName = index.getString(index.getTypeName(index.getMethodType(methodId)));
+        String parameterTypes = IntStream.range(0, index.getNumberOfParameters(methodId))
+            .mapToObj(i -> index.getString(index.getParameterType(methodId, i)))
+            .collect(Collectors.joining(", "));
+        return typeName.substring(typeName.lastIndexOf('/') + 1) + "." + index.getString(index.getMethodName(methodId)) + "(" + parameterTypes + ")";
+    }
+}
@@ -0,0 +1,53 @@
+package org.gradle.research;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApiModelCacheTest {
+    private static final HashCode KEY = Hashing.sha256().hashString("key", StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void typesWithManySupertypesAreStored() throws IOException {
+        ImmutableList<String> supertypes = IntStream.range(0, 300)
+            .mapToObj(i -> "Lorg/example/Supertype" + i)
+            .collect(ImmutableList.toImmutableList());
+        ApiMethod getter = new ApiMethod("Lorg/example/Type", "getValue", ImmutableList.of(), "Ljava/lang/String", false, true);
+        ApiModel model = new ApiModel(List.of(new ApiType("Lorg/example/Type", true, supertypes, ImmutableList.of(getter))), ImmutableSet.of());
+
+        ApiModelCache cache = new ApiModelCache(directory.toFile());
+        cache.store(KEY, model);
+        Optional<ApiModel> loaded = cache.load(KEY);
+
+        assertTrue(loaded.isPresent());
+        assertEquals(model.getTypes(), loaded.get().getTypes());
+    }
+
+    @Test
+    void corruptFilesAreDeletedAndTreatedAsMisses() throws IOException {
+        Path cacheFile = directory.resolve(KEY + ".bin");
+        // A valid header followed by a truncated string table
+        Files.write(cacheFile, new byte[]{0x41, 0x50, 0x49, 0x43, 0, 0, 0, 5, 0, 0, 0, 0, 2});
+
+        assertEquals(Optional.empty(), new ApiModelCache(directory.toFile()).load(KEY));
+        assertFalse(Files.exists(cacheFile));
+    }
+}
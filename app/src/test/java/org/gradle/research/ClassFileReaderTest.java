@@ -0,0 +1,38 @@
+package org.gradle.research;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassFileReaderTest {
+    @Test
+    void readsHeaderAndMethodsOfSampleClass() throws Exception {
+        ClassFile classFile;
+        try (ClasspathClasses classes = ClasspathClasses.scan(SampleApi.classpath())) {
+            classFile = classes.read("org/gradle/api/sample/SampleTask");
+        }
+
+        assertEquals("org/gradle/api/sample/SampleTask", classFile.name());
+        assertEquals("java/lang/Object", classFile.superName());
+        assertEquals(List.of("org/gradle/api/sample/SampleExtension"), classFile.interfaces());
+        assertTrue(classFile.isPublic());
+        assertFalse(classFile.isInterface());
+        assertFalse(classFile.deprecated());
+
+        Map<String, ClassFile.Method> methods = classFile.methods().stream()
+            .collect(Collectors.toMap(method -> method.name() + method.descriptor(), Function.identity()));
+        ClassFile.Method getTimeout = methods.get("getTimeout()Lorg/gradle/api/provider/Property;");
+        assertTrue(getTimeout.isAbstract());
+        assertEquals("Lorg/gradle/api/provider/Property;", getTimeout.returnTypeDescriptor());
+        assertFalse(methods.get("setArguments(Ljava/util/List;)V").isAbstract());
+        assertTrue(methods.get("getRetries()I").deprecated());
+        assertFalse(methods.get("execute()V").deprecated());
+    }
+}
@@ -0,0 +1,135 @@
+package org.gradle.research;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Checks which cached class files are read again after the changes seen by the watcher, the way watch mode applies them.
+ */
+class ClasspathWatcherTest {
+    private static final String PROVIDER = "org/gradle/api/provider/Provider";
+    private static final String PROPERTY = "org/gradle/api/provider/Property";
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @TempDir
+    Path classesDirectory;
+
+    private final ClassFileCache cache = new ClassFileCache();
+    private ClasspathWatcher watcher;
+
+    @BeforeEach
+    void watchSampleClasses() throws IOException {
+        // The class files of the sample API, as a compiler would write them to a directory
+        try (JarFile jar = new JarFile(SampleApi.classpath().get(0))) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (entry.getName().endsWith(".class")) {
+                    Path classFile = classesDirectory.resolve(entry.getName());
+                    Files.createDirectories(classFile.getParent());
+                    try (InputStream input = jar.getInputStream(entry)) {
+                        Files.copy(input, classFile);
+                    }
+                }
+            }
+        }
+        Files.writeString(classesDirectory.resolve("org/gradle/api/provider/notes.txt"), "notes");
+        watcher = ClasspathWatcher.watch(List.of(classesDirectory.toFile()));
+    }
+
+    @AfterEach
+    void closeWatcher() throws IOException {
+        watcher.close();
+    }
+
+    @Test
+    void changedClassIsReadAgain() throws Exception {
+        ClassFile provider = read(PROVIDER);
+        ClassFile property = read(PROPERTY);
+
+        Path classFile = classFile(PROVIDER);
+        Files.write(classFile, Files.readAllBytes(classFile));
+
+        assertEquals(Optional.of(Set.of(PROVIDER)), applyChanges());
+        assertNotSame(provider, read(PROVIDER));
+        assertSame(property, read(PROPERTY));
+    }
+
+    @Test
+    void deletedClassIsDropped() throws Exception {
+        ClassFile provider = read(PROVIDER);
+        read(PROPERTY);
+
+        Files.delete(classFile(PROPERTY));
+
+        assertEquals(Optional.of(Set.of(PROPERTY)), applyChanges());
+        assertSame(provider, read(PROVIDER));
+    }
+
+    @Test
+    void deletingOtherFileInvalidatesAllClasses() throws Exception {
+        ClassFile provider = read(PROVIDER);
+        ClassFile property = read(PROPERTY);
+
+        // The deleted entry could have been a directory of classes
+        Files.delete(classesDirectory.resolve("org/gradle/api/provider/notes.txt"));
+
+        assertEquals(Optional.empty(), applyChanges());
+        assertNotSame(provider, read(PROVIDER));
+        assertNotSame(property, read(PROPERTY));
+    }
+
+    @Test
+    void overflowInvalidatesAllClasses() throws Exception {
+        ClassFile provider = read(PROVIDER);
+        ClassFile property = read(PROPERTY);
+
+        // More events than a watch key holds before it reports an overflow instead
+        Path generatedDirectory = classFile(PROVIDER).getParent();
+        for (int i = 0; i < 2000; i++) {
+            Files.writeString(generatedDirectory.resolve("Generated" + i + ".class"), "");
+        }
+
+        assertEquals(Optional.empty(), applyChanges());
+        assertNotSame(provider, read(PROVIDER));
+        assertNotSame(property, read(PROPERTY));
+    }
+
+    /**
+     * Waits for the changes and invalidates the cache like watch mode does.
+     */
+    private Optional<Set<String>> applyChanges() {
+        Optional<Set<String>> changedClasses = assertTimeoutPreemptively(TIMEOUT, () -> watcher.awaitChanges());
+        changedClasses.ifPresentOrElse(cache::invalidate, cache::invalidateAll);
+        return changedClasses;
+    }
+
+    private ClassFile read(String className) throws IOException {
+        try (ClasspathClasses classes = ClasspathClasses.scan(List.of(classesDirectory.toFile()))) {
+            return cache.read(classes, className);
+        }
+    }
+
+    private Path classFile(String className) {
+        return classesDirectory.resolve(className + ".class");
+    }
+}
@@ -0,0 +1,46 @@
+package org.gradle.research;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExtractionBackendTest {
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void backendsProduceTheSameReport(boolean inherited) throws Exception {
+        String walaReport = generateReport(ExtractionBackend.WALA, inherited);
+        String fastReport = generateReport(ExtractionBackend.FAST, inherited);
+
+        assertTrue(walaReport.contains("void SampleExtension.setDescription(String)"), walaReport);
+        assertEquals(walaReport, fastReport);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ReportFormat.class)
+    void pipelineProducesTheSameReport(ReportFormat format) throws Exception {
+        String report = generateReport(ExtractionBackend.FAST, false, false, format);
+        String pipelineReport = generateReport(ExtractionBackend.FAST, false, true, format);
+
+        assertEquals(report, pipelineReport);
+    }
+
+    private static String generateReport(ExtractionBackend backend, boolean inherited) throws Exception {
+        return generateReport(backend, inherited, false, ReportFormat.MARKDOWN);
+    }
+
+    private static String generateReport(ExtractionBackend backend, boolean inherited, boolean pipeline, ReportFormat format) throws Exception {
+        AnalysisOptions options = new AnalysisOptions(List.of(), List.of(), false, null, 1, false, List.of(), backend, inherited, pipeline);
+        StringWriter report = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(report)) {
+            PublicApiAnalyzer.writeReport("Sample", SampleApi.classpath(), options, format, AnalysisEnvironment.standalone(), writer, new Profiler());
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,48 @@
+package org.gradle.research;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InheritedPropertiesTest {
+    private static final String LAZY_GETTERS_SECTION = "## Lazy properties with non-abstract getters";
+    private static final String DEFAULT_GETTER = "SampleReportSpec.getFormat()";
+
+    @ParameterizedTest
+    @EnumSource(ExtractionBackend.class)
+    void reportsLazyDefaultGetterInheritedByClass(ExtractionBackend backend) throws Exception {
+        String section = lazyGettersSection(generateReport(backend, true));
+
+        assertTrue(section.contains(DEFAULT_GETTER), section);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExtractionBackend.class)
+    void ignoresDefaultGettersWithoutInheritedProperties(ExtractionBackend backend) throws Exception {
+        String section = lazyGettersSection(generateReport(backend, false));
+
+        assertFalse(section.contains(DEFAULT_GETTER), section);
+    }
+
+    private static String lazyGettersSection(String report) {
+        int start = report.indexOf(LAZY_GETTERS_SECTION);
+        assertTrue(start >= 0, report);
+        int end = report.indexOf("\n## ", start + LAZY_GETTERS_SECTION.length());
+        return end < 0 ? report.substring(start) : report.substring(start, end);
+    }
+
+    private static String generateReport(ExtractionBackend backend, boolean inherited) throws Exception {
+        AnalysisOptions options = new AnalysisOptions(List.of(), List.of(), false, null, 1, false, List.of(), backend, inherited, false);
+        StringWriter report = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(report)) {
+            PublicApiAnalyzer.writeReport("Sample", SampleApi.classpath(), options, ReportFormat.MARKDOWN, AnalysisEnvironment.standalone(), writer, new Profiler());
+        }
+        return report.toString();
+    }
+}
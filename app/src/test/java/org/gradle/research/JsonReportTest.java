@@ -0,0 +1,123 @@
+package org.gradle.research;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Parses the JSON based reports with a strict JSON parser, which rejects unescaped control characters and trailing content.
+ */
+class JsonReportTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .enable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+
+    // Names in class files may contain any character but '.', ';', '[' and '/'
+    private static final String ODD_NAME = "a\"b\\c\nd\re\tf\u0001g\u001fh i";
+    private static final ApiMethod ODD_METHOD = new ApiMethod(
+        "Lorg/example/" + ODD_NAME, "set" + ODD_NAME, ImmutableList.of("Ljava/lang/String"), ApiMethod.VOID, false, false);
+
+    @Test
+    void jsonLinesReportOfSampleApiIsValid() throws Exception {
+        String[] lines = generateReport(ReportFormat.JSONL).split("\n");
+        List<JsonNode> records = new ArrayList<>();
+        for (String line : lines) {
+            records.add(MAPPER.readTree(line));
+        }
+
+        JsonNode summary = records.get(records.size() - 1);
+        assertEquals("summary", summary.get("record").asText());
+        List<JsonNode> findings = records.subList(0, records.size() - 1);
+        assertFalse(findings.isEmpty());
+        int summarizedFindings = 0;
+        for (JsonNode count : summary.get("findings")) {
+            summarizedFindings += count.asInt();
+        }
+        assertEquals(findings.size(), summarizedFindings);
+        for (JsonNode finding : findings) {
+            assertEquals("finding", finding.get("record").asText());
+            assertTrue(summary.get("findings").has(finding.get("ruleId").asText()), finding::toString);
+            assertTrue(finding.get("declaringType").asText().startsWith("org.gradle.api."), finding::toString);
+            assertTrue(finding.hasNonNull("member"), finding::toString);
+            assertTrue(finding.hasNonNull("propertyName"), finding::toString);
+        }
+        assertTrue(findings.stream().anyMatch(finding ->
+            finding.get("ruleId").asText().equals("setter-without-getter")
+                && finding.get("declaringType").asText().equals("org.gradle.api.sample.SampleExtension")
+                && finding.get("member").asText().equals("setDescription(Ljava/lang/String;)V")), records::toString);
+    }
+
+    @Test
+    void sarifReportOfSampleApiIsValid() throws Exception {
+        JsonNode log = MAPPER.readTree(generateReport(ReportFormat.SARIF));
+
+        assertEquals("2.1.0", log.get("version").asText());
+        JsonNode runs = log.get("runs");
+        assertTrue(runs.isArray());
+        assertEquals(1, runs.size());
+        JsonNode run = runs.get(0);
+        JsonNode rules = run.get("tool").get("driver").get("rules");
+        assertTrue(rules.isArray());
+        assertEquals(ReportGenerator.loadRules().size(), rules.size());
+        JsonNode results = run.get("results");
+        assertTrue(results.isArray());
+        assertFalse(results.isEmpty());
+        for (JsonNode result : results) {
+            assertEquals(rules.get(result.get("ruleIndex").asInt()).get("id").asText(), result.get("ruleId").asText());
+            assertTrue(result.get("message").hasNonNull("text"), result::toString);
+            assertEquals(1, result.get("locations").size(), result::toString);
+        }
+    }
+
+    @Test
+    void jsonLinesFindingRoundTripsNames() throws Exception {
+        ReportEncoder encoder = ReportEncoder.create(ReportFormat.JSONL, ReportGenerator.loadRules());
+        StringWriter fragment = new StringWriter();
+        encoder.encodeFinding(fragment, 0, new Finding(ODD_NAME, ODD_METHOD, "detail " + ODD_NAME));
+
+        JsonNode finding = MAPPER.readTree(fragment.toString());
+
+        assertEquals("org.example." + ODD_NAME, finding.get("declaringType").asText());
+        assertEquals("set" + ODD_NAME + "(Ljava/lang/String;)V", finding.get("member").asText());
+        assertEquals(ODD_NAME, finding.get("propertyName").asText());
+        assertEquals("detail " + ODD_NAME, finding.get("detail").asText());
+    }
+
+    @Test
+    void sarifResultRoundTripsNames() throws Exception {
+        ReportEncoder encoder = ReportEncoder.create(ReportFormat.SARIF, ReportGenerator.loadRules());
+        StringWriter fragment = new StringWriter();
+        encoder.encodeFinding(fragment, 0, new Finding(ODD_NAME, ODD_METHOD));
+        encoder.encodeFinding(fragment, 0, new Finding(ODD_NAME, ODD_METHOD));
+
+        // The results of a section are separated by commas
+        JsonNode results = MAPPER.readTree("[" + fragment + "]");
+
+        assertEquals(2, results.size());
+        JsonNode result = results.get(0);
+        assertEquals("void " + ODD_NAME + ".set" + ODD_NAME + "(String)", result.get("message").get("text").asText());
+        JsonNode location = result.get("locations").get(0).get("logicalLocations").get(0);
+        assertEquals("org.example." + ODD_NAME + ".set" + ODD_NAME, location.get("fullyQualifiedName").asText());
+        assertEquals("set" + ODD_NAME + "(Ljava/lang/String;)V", location.get("decoratedName").asText());
+        assertEquals(ODD_NAME, result.get("properties").get("propertyName").asText());
+    }
+
+    private static String generateReport(ReportFormat format) throws Exception {
+        AnalysisOptions options = new AnalysisOptions(List.of(), List.of(), false, null, 1, false, List.of(), ExtractionBackend.FAST, false, false);
+        StringWriter report = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(report)) {
+            PublicApiAnalyzer.writeReport("Sample", SampleApi.classpath(), options, format, AnalysisEnvironment.standalone(), writer, new Profiler());
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,74 @@
+package org.gradle.research;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the trie of {@link PackageMatcher} gives the same answers as matching every pattern as a regular expression,
+ * the way the per-class filter did before it.
+ */
+class PackageMatcherTest {
+    private static final List<List<String>> PATTERN_SETS = List.of(
+        // Some of the public API packages
+        List.of("org/gradle/", "org/gradle/api/.*", "org/gradle/plugin/use/", "org/gradle/plugin/devel/.*", "org/gradle/testing/jacoco/.*"),
+        // The default ignored packages
+        List.of(".*/internal/.*"),
+        // The default ignored packages with the --ignore-package values org.gradle.api.tasks, com and org.gradle.*.impl
+        List.of(".*/internal/.*", "org/gradle/api/tasks/.*", "com/.*", "org/gradle/*/impl/.*"),
+        // Patterns that are matched as regular expressions
+        List.of("org/gradle/(api|work)/", ".*/impl/.*/", "org/.*/util/.*")
+    );
+
+    private static final List<String> PACKAGE_NAMES = List.of(
+        "",
+        "org",
+        "org/gradle",
+        "org/gradle/api",
+        "org/gradle/api/tasks",
+        "org/gradle/api/tasks/compile",
+        "org/gradle/apis",
+        "org/gradle/plugin",
+        "org/gradle/plugin/use",
+        "org/gradle/plugin/use/resolve",
+        "org/gradle/plugin/devel",
+        "org/gradle/testing/jacoco/plugins",
+        "org/gradle/work",
+        "org/gradle/util/internal",
+        "org/gradle/foo/impl",
+        "org/gradle/foo/impl/bar",
+        "com",
+        "com/example",
+        "internal",
+        "internal/foo",
+        "org/internal",
+        "org/gradle/internal",
+        "org/gradle/api/internal",
+        "org/gradle/api/internal/tasks",
+        "org/gradle/api/tasks/internal",
+        "org/gradle/internalx",
+        "org/gradle/xinternal/api"
+    );
+
+    static Stream<Arguments> patternsAndPackages() {
+        return PATTERN_SETS.stream()
+            .flatMap(patterns -> PACKAGE_NAMES.stream().map(packageName -> Arguments.of(patterns, packageName)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("patternsAndPackages")
+    void matchesLikeRegularExpressions(List<String> patterns, String packageName) {
+        String packageWithTrailingSlash = packageName + "/";
+        boolean expected = patterns.stream()
+            .map(Pattern::compile)
+            .anyMatch(pattern -> pattern.matcher(packageWithTrailingSlash).matches());
+
+        assertEquals(expected, new PackageMatcher(patterns).matches(packageName));
+    }
+}
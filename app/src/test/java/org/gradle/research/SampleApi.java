@@ -0,0 +1,20 @@
+package org.gradle.research;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * The sample API of the class data sharing training run, which the build passes to the tests as the {@code sample.jar} system property.
+ */
+final class SampleApi {
+    private SampleApi() {
+    }
+
+    static List<File> classpath() {
+        String sampleJar = System.getProperty("sample.jar");
+        if (sampleJar == null) {
+            throw new IllegalStateException("The sample.jar system property is not set");
+        }
+        return List.of(new File(sampleJar));
+    }
+}
@@ -0,0 +1,84 @@
+package org.gradle.research;
+
+import com.google.common.io.Closer;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.TypeReference;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedJdkClassesTest {
+    private final List<File> classpath = SampleApi.classpath();
+    private final SharedJdkClasses jdkClasses = new SharedJdkClasses();
+
+    @Test
+    void hierarchiesCanBeCollectedAfterUse() throws Exception {
+        WeakReference<ClassHierarchy> first = new WeakReference<>(buildHierarchy(jdkClasses));
+        // The second hierarchy reads the JDK class files kept for the first one
+        WeakReference<ClassHierarchy> second = new WeakReference<>(buildHierarchy(jdkClasses));
+
+        awaitCollected(first);
+        awaitCollected(second);
+    }
+
+    @Test
+    void hierarchiesBuiltConcurrentlyHaveTheirOwnJdkClasses() throws Exception {
+        List<Future<ClassHierarchy>> hierarchies = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 4; i++) {
+                hierarchies.add(executor.submit(() -> buildHierarchy(jdkClasses)));
+            }
+        }
+        ClassHierarchy first = hierarchies.get(0).get();
+        for (Future<ClassHierarchy> hierarchy : hierarchies.subList(1, hierarchies.size())) {
+            assertNotSame(first.lookupClass(TypeReference.JavaLangObject), hierarchy.get().lookupClass(TypeReference.JavaLangObject));
+        }
+    }
+
+    @Test
+    void keptClassFilesStayWithinTheLimit() throws Exception {
+        long limit = 64 * 1024;
+        SharedJdkClasses limitedJdkClasses = new SharedJdkClasses(limit);
+        // Class files past the limit are still read, they are just not kept
+        buildHierarchy(limitedJdkClasses);
+        buildHierarchy(limitedJdkClasses);
+
+        long retainedBytes = limitedJdkClasses.getRetainedBytes();
+        assertTrue(retainedBytes > 0 && retainedBytes <= limit, () -> "Retained " + retainedBytes + " bytes");
+        buildHierarchy(jdkClasses);
+        assertTrue(jdkClasses.getRetainedBytes() > limit, () -> "Retained " + jdkClasses.getRetainedBytes() + " bytes without a limit");
+    }
+
+    private ClassHierarchy buildHierarchy(SharedJdkClasses sharedClasses) throws Exception {
+        try (Closer closer = Closer.create()) {
+            AnalysisScope scope = WalaApiModelExtractor.createScope(classpath, sharedClasses, ClasspathModules.DEFAULT, closer, new Profiler());
+            scope.setExclusions(ApiScopeExclusions.scan(classpath, new ApiTypeFilter(List.of(), List.of()), ApiModelExtractor.lazyRootTypes(new AnalysisOptions())));
+            ClassHierarchy hierarchy = ClassHierarchyFactory.make(scope);
+            assertNotNull(hierarchy.lookupClass(TypeReference.JavaLangObject));
+            assertNotNull(hierarchy.lookupClass(TypeReference.findOrCreate(ClassLoaderReference.Application, "Lorg/gradle/api/sample/SampleTask")));
+            return hierarchy;
+        }
+    }
+
+    private static void awaitCollected(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(reference.get(), "The class hierarchy is still reachable");
+    }
+}
@@ -0,0 +1,37 @@
+plugins {
+    java
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    jmh(project(":app"))
+    jmh("com.google.guava:guava:32.1.3-jre")
+    jmh("com.ibm.wala:com.ibm.wala.core:1.6.4")
+}
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+jmh {
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    // Report the allocation rate next to the throughput of each benchmark
+    profilers = listOf("gc")
+    // Run against real JARs instead of the synthetic API, e.g. -PbenchmarkClasspath=gradle-8.8/lib/gradle-core-api-8.8.jar:...
+    providers.gradleProperty("benchmarkClasspath").orNull?.let { jvmArgsAppend.add("-Dbenchmark.classpath=$it") }
+    // StartupBenchmark runs the installed distribution on the JAR of its class data sharing training run
+    jvmArgsAppend.add("-Dbenchmark.distribution=${rootDir.resolve("app/build/install/app")}")
+    jvmArgsAppend.add("-Dbenchmark.startupInput=${rootDir.resolve("app/build/libs/app-cds-training.jar")}")
+}
+
+tasks.named("jmh") {
+    dependsOn(":app:installDist", ":app:cdsTrainingJar")
+}
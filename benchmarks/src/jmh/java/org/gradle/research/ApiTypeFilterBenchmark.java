@@ -0,0 +1,72 @@
+package org.gradle.research;
+
+import com.google.common.io.Closer;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Measures the cost of {@link ApiTypeFilter#includeType(IClass)} for every class of a hierarchy,
+ * starting from a fresh filter, compared to the previous regex-based implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ApiTypeFilterBenchmark {
+    private static final List<String> IGNORED_PACKAGES = List.of("org.gradle.api.synthetic1", "org.gradle.api.synthetic2");
+    private static final List<String> IGNORED_TYPES = List.of("org.gradle.api.synthetic0.Type0_0");
+
+    @Param({"current", "legacy"})
+    public String implementation;
+
+    private final Closer closer = Closer.create();
+    private List<IClass> classes;
+
+    // A fresh filter per invocation, so that every lookup starts with an empty cache
+    private Predicate<IClass> filter;
+
+    @Setup
+    public void createHierarchy(SyntheticApi api) throws Exception {
+        ClassHierarchy hierarchy = ClassHierarchyFactory.make(WalaApiModelExtractor.createScope(api.getClasspath(), ClasspathModules.DEFAULT, closer));
+        classes = new ArrayList<>(hierarchy.getNumberOfClasses());
+        hierarchy.forEach(classes::add);
+    }
+
+    @TearDown
+    public void closeModules() throws IOException {
+        closer.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void createFilter() {
+        filter = switch (implementation) {
+            case "current" -> new ApiTypeFilter(IGNORED_PACKAGES, IGNORED_TYPES)::includeType;
+            case "legacy" -> new LegacyApiTypeFilter(IGNORED_PACKAGES, IGNORED_TYPES)::includeType;
+            default -> throw new IllegalArgumentException(implementation);
+        };
+    }
+
+    @Benchmark
+    public void filterAllClasses(Blackhole blackhole) {
+        for (IClass iClass : classes) {
+            blackhole.consume(filter.test(iClass));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.gradle.research;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares extracting the API model with the class file reader and with the WALA class hierarchy.
+ * Single shot times reflect the startup cost of a run, and the {@code gc} profiler reports the heap allocated by each backend.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExtractionBackendBenchmark {
+    @Param({"FAST", "WALA"})
+    public ExtractionBackend backend;
+
+    @Benchmark
+    public ApiModel extractModel(SyntheticApi api) throws Exception {
+        return api.extractModel(backend);
+    }
+}
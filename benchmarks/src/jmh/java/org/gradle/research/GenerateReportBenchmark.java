@@ -0,0 +1,33 @@
+package org.gradle.research;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures generating a complete report for the synthetic API, discarding the output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GenerateReportBenchmark {
+    @Param({"1", "4"})
+    public int threads;
+
+    @Benchmark
+    public void generateReport(SyntheticApi api) throws Exception {
+        Profiler profiler = new Profiler();
+        ApiModelLoader modelLoader = new ApiModelLoader(api.getClasspath(), api.createOptions(threads), profiler);
+        try (PrintWriter writer = new PrintWriter(Writer.nullWriter())) {
+            new ReportGenerator(modelLoader, writer, profiler).generateReport();
+        }
+    }
+}
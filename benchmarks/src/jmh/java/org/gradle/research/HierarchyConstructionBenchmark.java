@@ -0,0 +1,41 @@
+package org.gradle.research;
+
+import com.google.common.io.Closer;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the WALA class hierarchy for the synthetic API, including the JDK classes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HierarchyConstructionBenchmark {
+    private static final List<String> LAZY_TYPES = List.of("Lorg/gradle/api/provider/Provider", "Lorg/gradle/api/file/ConfigurableFileCollection");
+
+    @Benchmark
+    public int fullScope(SyntheticApi api) throws Exception {
+        try (Closer closer = Closer.create()) {
+            AnalysisScope scope = WalaApiModelExtractor.createScope(api.getClasspath(), ClasspathModules.DEFAULT, closer);
+            return ClassHierarchyFactory.make(scope).getNumberOfClasses();
+        }
+    }
+
+    @Benchmark
+    public int prunedScope(SyntheticApi api) throws Exception {
+        try (Closer closer = Closer.create()) {
+            AnalysisScope scope = WalaApiModelExtractor.createScope(api.getClasspath(), ClasspathModules.DEFAULT, closer);
+            scope.setExclusions(ApiScopeExclusions.scan(api.getClasspath(), api.createFilter(), LAZY_TYPES));
+            return ClassHierarchyFactory.make(scope).getNumberOfClasses();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.gradle.research;
+
+import com.google.common.io.Closer;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading the classpath via memory-mapped JARs with reading it via {@link java.util.jar.JarFile}
+ * while building the full class hierarchy. The heap cost shows up in the allocation rate of the {@code gc} profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JarModuleBenchmark {
+    @Param({"mapped", "jarFile"})
+    public String jarAccess;
+
+    @Benchmark
+    public int buildHierarchy(SyntheticApi api) throws Exception {
+        ClasspathModules modules = switch (jarAccess) {
+            case "mapped" -> ClasspathModules.DEFAULT;
+            case "jarFile" -> ClasspathModules.JAR_FILE;
+            default -> throw new IllegalArgumentException(jarAccess);
+        };
+        try (Closer closer = Closer.create()) {
+            AnalysisScope scope = WalaApiModelExtractor.createScope(api.getClasspath(), modules, closer);
+            return ClassHierarchyFactory.make(scope).getNumberOfClasses();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.gradle.research;
+
+import java.util.stream.Collectors;
+
+/**
+ * The {@link String#format}-based rendering of finding signatures without caching, kept as a baseline for benchmarks.
+ */
+public class LegacySignatureRenderer {
+    public static String toSimpleSignature(ApiMethod method) {
+        // Get the class name
+        String className = toSimpleName(method.declaringType());
+
+        // Get the method name
+        String methodName = method.name();
+
+        // Get the parameter types
+        String parameterTypes = method.parameterTypes().stream()
+            .map(LegacySignatureRenderer::toSimpleName)
+            .collect(Collectors.joining(", "));
+
+        // Get the return type
+        String returnType = toSimpleName(method.returnType());
+
+        return String.format("%s %s.%s(%s)", returnType, className, methodName, parameterTypes);
+    }
+
+    public static String toSimpleName(String typeName) {
+        if (typeName.startsWith("[")) {
+            return toSimpleName(typeName.substring(1)) + "[]";
+        } else {
+            return toSimpleTypeName(typeName);
+        }
+    }
+
+    private static String toSimpleTypeName(String typeName) {
+        switch (typeName) {
+            case "V":
+                return "void";
+            case "B":
+                return "byte";
+            case "C":
+                return "char";
+            case "D":
+                return "double";
+            case "F":
+                return "float";
+            case "I":
+                return "int";
+            case "J":
+                return "long";
+            case "S":
+                return "short";
+            case "Z":
+                return "boolean";
+        }
+        String name = typeName;
+        // Remove package part if present
+        if (name.contains("/")) {
+            name = name.substring(name.lastIndexOf('/') + 1);
+        }
+        return name.replace(';', ' ').trim();
+    }
+}
@@ -0,0 +1,35 @@
+package org.gradle.research;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures classifying every public method of the synthetic API as a getter or setter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PropertyMethodBenchmark {
+    private List<ApiMethod> methods;
+
+    @Setup
+    public void extractMethods(SyntheticApi api) throws Exception {
+        methods = api.extractModel().getMethods();
+    }
+
+    @Benchmark
+    public void classifyAllMethods(Blackhole blackhole) {
+        for (ApiMethod method : methods) {
+            blackhole.consume(PropertyMethod.from(method));
+        }
+    }
+}
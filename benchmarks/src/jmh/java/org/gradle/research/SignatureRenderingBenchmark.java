@@ -0,0 +1,63 @@
+package org.gradle.research;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering the signatures and type names printed for findings with the {@link String#format}-based {@link LegacySignatureRenderer}
+ * and with a {@link SignatureRenderer}, which caches simple names.
+ * <p>
+ * The renderer lives across invocations, like across the findings of a report, so the cached variants measure
+ * rendering with the few types that appear in most signatures already cached.
+ * Compare {@code gc.alloc.rate.norm} reported by the GC profiler to see the allocations per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SignatureRenderingBenchmark {
+    private List<ApiMethod> methods;
+    private SignatureRenderer renderer;
+
+    @Setup
+    public void extractMethods(SyntheticApi api) throws Exception {
+        methods = api.extractModel().getMethods();
+        renderer = new SignatureRenderer();
+    }
+
+    @Benchmark
+    public void renderSignatures(Blackhole blackhole) {
+        for (ApiMethod method : methods) {
+            blackhole.consume(LegacySignatureRenderer.toSimpleSignature(method));
+        }
+    }
+
+    @Benchmark
+    public void renderSignaturesCached(Blackhole blackhole) {
+        for (ApiMethod method : methods) {
+            blackhole.consume(renderer.getSimpleSignature(method));
+        }
+    }
+
+    @Benchmark
+    public void renderReturnTypeNames(Blackhole blackhole) {
+        for (ApiMethod method : methods) {
+            blackhole.consume(LegacySignatureRenderer.toSimpleName(method.returnType()));
+        }
+    }
+
+    @Benchmark
+    public void renderReturnTypeNamesCached(Blackhole blackhole) {
+        for (ApiMethod method : methods) {
+            blackhole.consume(renderer.getSimpleName(method.returnType()));
+        }
+    }
+}
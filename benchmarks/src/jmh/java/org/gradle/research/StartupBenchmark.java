@@ -0,0 +1,103 @@
+package org.gradle.research;
+
+import com.google.common.base.Splitter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to generate a report with the installed distribution, from starting the JVM until it exits,
+ * with and without the class data sharing archive the distribution ships, which is created by {@code cdsArchive}.
+ * <p>
+ * The distribution is run through its start script, so the class path is the same one the archive was created with.
+ * {@code off} disables class data sharing, {@code jdk} only uses the archive of the JDK classes that ships with the JDK,
+ * and {@code app} uses the archive of the distribution, which also contains the classes of the analyzer, picocli, Guava and WALA.
+ * <p>
+ * The {@code benchmark.distribution} system property points to the installed distribution, and {@code benchmark.startupInput}
+ * to the JAR to analyze; the Gradle build sets both, analyzing the JAR of the training run.
+ * Setting {@code benchmark.classpath} analyzes those JARs instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StartupBenchmark {
+    @Param({"off", "jdk", "app"})
+    public String sharing;
+
+    private Path distribution;
+    private List<String> classpath;
+    private Path output;
+
+    @Setup
+    public void setUp() throws IOException {
+        distribution = Path.of(requiredProperty("benchmark.distribution"));
+        if (sharing.equals("app") && !Files.isRegularFile(distribution.resolve("lib/app.jsa"))) {
+            throw new IllegalStateException("No class data sharing archive in " + distribution + ", run installDist first");
+        }
+        String externalClasspath = System.getProperty("benchmark.classpath");
+        classpath = Splitter.on(File.pathSeparatorChar).omitEmptyStrings().splitToList(
+            externalClasspath != null ? externalClasspath : requiredProperty("benchmark.startupInput"));
+        output = Files.createTempFile("startup-report", ".md");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public int timeToReport() throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(distribution.resolve("bin/app").toString());
+        for (String entry : classpath) {
+            command.add("--classpath");
+            command.add(entry);
+        }
+        command.add("--output");
+        command.add(output.toString());
+        ProcessBuilder builder = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().put("JAVA_HOME", System.getProperty("java.home"));
+        builder.environment().put("JAVA_OPTS", jvmOptions());
+        int exitCode = builder.start().waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("Report generation failed with exit code " + exitCode);
+        }
+        return exitCode;
+    }
+
+    /**
+     * Returns the options overriding the ones of the start script; later options take precedence.
+     */
+    private String jvmOptions() {
+        return switch (sharing) {
+            case "off" -> "-Xshare:off";
+            case "jdk" -> "-XX:SharedArchiveFile=" + Path.of(System.getProperty("java.home"), "lib", "server", "classes.jsa");
+            case "app" -> "";
+            default -> throw new IllegalArgumentException(sharing);
+        };
+    }
+
+    private static String requiredProperty(String name) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            throw new IllegalStateException("The " + name + " system property is not set");
+        }
+        return value;
+    }
+}
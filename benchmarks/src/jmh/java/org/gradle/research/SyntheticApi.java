@@ -0,0 +1,84 @@
+package org.gradle.research;
+
+import com.google.common.base.Splitter;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A {@link SyntheticApiJar} shared by the benchmarks, generated once per parameter combination.
+ * <p>
+ * Setting the {@code benchmark.classpath} system property to a list of JARs, e.g. those of a full Gradle distribution,
+ * runs the benchmarks against that classpath instead.
+ */
+@State(Scope.Benchmark)
+public class SyntheticApi {
+    @Param({"50"})
+    public int packageCount;
+
+    @Param({"40"})
+    public int classesPerPackage;
+
+    @Param({"12"})
+    public int methodsPerClass;
+
+    private Path workDirectory;
+    private List<File> classpath;
+
+    @Setup
+    public void generate() throws IOException {
+        String externalClasspath = System.getProperty("benchmark.classpath");
+        if (externalClasspath != null) {
+            classpath = Splitter.on(File.pathSeparatorChar).omitEmptyStrings().splitToStream(externalClasspath)
+                .map(File::new)
+                .toList();
+            return;
+        }
+        workDirectory = Files.createTempDirectory("synthetic-api");
+        Path jar = new SyntheticApiJar(packageCount, classesPerPackage, methodsPerClass).generate(workDirectory);
+        classpath = List.of(jar.toFile());
+    }
+
+    @TearDown
+    public void delete() throws IOException {
+        if (workDirectory == null) {
+            return;
+        }
+        MoreFiles.deleteRecursively(workDirectory, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+
+    public List<File> getClasspath() {
+        return classpath;
+    }
+
+    public ApiTypeFilter createFilter() {
+        return createOptions(1).createApiTypeFilter();
+    }
+
+    public AnalysisOptions createOptions(int threads) {
+        return createOptions(threads, ExtractionBackend.WALA);
+    }
+
+    public AnalysisOptions createOptions(int threads, ExtractionBackend backend) {
+        return new AnalysisOptions(List.of(), List.of(), false, null, threads, false, List.of(), backend, false, false);
+    }
+
+    public ApiModel extractModel() throws Exception {
+        return extractModel(ExtractionBackend.WALA);
+    }
+
+    public ApiModel extractModel(ExtractionBackend backend) throws Exception {
+        AnalysisOptions options = createOptions(1, backend);
+        return ApiModelExtractor.create(options.createApiTypeFilter(), options, AnalysisEnvironment.standalone(), new Profiler()).extract(classpath);
+    }
+}
@@ -0,0 +1,115 @@
+package org.gradle.research;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Generates a JAR resembling the Gradle API, so benchmarks can run without downloading a Gradle distribution.
+ * <p>
+ * Each package contains public API types with getters, setters and fluent setters, plus an {@code internal}
+ * subpackage with implementations of those types that the {@link ApiTypeFilter} excludes.
+ */
+public class SyntheticApiJar {
+    private final int packageCount;
+    private final int classesPerPackage;
+    private final int methodsPerClass;
+
+    public SyntheticApiJar(int packageCount, int classesPerPackage, int methodsPerClass) {
+        this.packageCount = packageCount;
+        this.classesPerPackage = classesPerPackage;
+        this.methodsPerClass = methodsPerClass;
+    }
+
+    /**
+     * Writes the sources to the given directory, compiles them and returns the packaged JAR.
+     */
+    public Path generate(Path workDirectory) throws IOException {
+        Path sourceDirectory = workDirectory.resolve("src");
+        Path classesDirectory = workDirectory.resolve("classes");
+        Files.createDirectories(classesDirectory);
+
+        List<Path> sources = new ArrayList<>();
+        sources.add(writeSource(sourceDirectory, "org.gradle.api.provider", "Provider",
+            "public interface Provider<T> { T get(); }"));
+        sources.add(writeSource(sourceDirectory, "org.gradle.api.provider", "Property",
+            "public interface Property<T> extends Provider<T> { void set(T value); }"));
+        sources.add(writeSource(sourceDirectory, "org.gradle.api.file", "FileCollection",
+            "public interface FileCollection extends Iterable<java.io.File> { }"));
+        sources.add(writeSource(sourceDirectory, "org.gradle.api.file", "ConfigurableFileCollection",
+            "public interface ConfigurableFileCollection extends FileCollection { void from(Object... paths); }"));
+        for (int packageIndex = 0; packageIndex < packageCount; packageIndex++) {
+            String packageName = "org.gradle.api.synthetic" + packageIndex;
+            for (int classIndex = 0; classIndex < classesPerPackage; classIndex++) {
+                String className = "Type" + packageIndex + "_" + classIndex;
+                sources.add(writeSource(sourceDirectory, packageName, className, apiType(className)));
+                sources.add(writeSource(sourceDirectory, packageName + ".internal", "Default" + className,
+                    internalType(packageName, className)));
+            }
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> arguments = new ArrayList<>(List.of("-proc:none", "-nowarn", "-d", classesDirectory.toString()));
+        sources.forEach(source -> arguments.add(source.toString()));
+        int result = compiler.run(null, OutputStream.nullOutputStream(), System.err, arguments.toArray(String[]::new));
+        if (result != 0) {
+            throw new IllegalStateException("Could not compile synthetic API sources");
+        }
+
+        Path jar = workDirectory.resolve("synthetic-api.jar");
+        try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> classFiles = Files.walk(classesDirectory)) {
+            classFiles.filter(Files::isRegularFile).sorted().forEach(classFile -> {
+                try {
+                    output.putNextEntry(new JarEntry(classesDirectory.relativize(classFile).toString().replace('\\', '/')));
+                    Files.copy(classFile, output);
+                    output.closeEntry();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return jar;
+    }
+
+    private String apiType(String className) {
+        StringBuilder source = new StringBuilder();
+        source.append("public abstract class ").append(className).append(" {\n");
+        for (int i = 0; i < methodsPerClass; i++) {
+            switch (i % 6) {
+                case 0 -> source.append("    public abstract org.gradle.api.provider.Property<String> getLazy").append(i).append("();\n");
+                case 1 -> source.append("    public org.gradle.api.file.ConfigurableFileCollection getFiles").append(i).append("() { return null; }\n");
+                case 2 -> source.append("    public String getName").append(i).append("() { return null; }\n")
+                    .append("    public void setName").append(i).append("(Object value) { }\n");
+                case 3 -> source.append("    public ").append(className).append(" setFluent").append(i).append("(int value) { return this; }\n");
+                case 4 -> source.append("    public boolean isEnabled").append(i).append("() { return false; }\n")
+                    .append("    public void enabled").append(i).append("(boolean value) { }\n");
+                default -> source.append("    public void setWriteOnly").append(i).append("(java.io.File value) { }\n");
+            }
+        }
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private static String internalType(String packageName, String className) {
+        return "public abstract class Default" + className + " extends " + packageName + "." + className + " {\n"
+               + "    public String getInternalState() { return null; }\n"
+               + "}\n";
+    }
+
+    private static Path writeSource(Path sourceDirectory, String packageName, String className, String body) throws IOException {
+        Path source = sourceDirectory.resolve(packageName.replace('.', '/')).resolve(className + ".java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, "package " + packageName + ";\n\n" + body);
+        return source;
+    }
+}
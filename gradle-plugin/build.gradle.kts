@@ -0,0 +1,27 @@
+plugins {
+    `java-gradle-plugin`
+}
+
+repositories {
+    mavenCentral()
+}
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+tasks.compileJava {
+    // The plugin is loaded by builds running on older JVMs; only the worker daemon runs the analyzer, which needs Java 21
+    options.release = 8
+}
+
+gradlePlugin {
+    plugins {
+        create("publicApiReport") {
+            id = "org.gradle.research.public-api-report"
+            implementationClass = "org.gradle.research.plugin.PublicApiReportPlugin"
+        }
+    }
+}
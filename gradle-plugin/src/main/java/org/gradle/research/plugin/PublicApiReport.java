@@ -0,0 +1,132 @@
+package org.gradle.research.plugin;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.jvm.toolchain.JavaLauncher;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+
+import javax.inject.Inject;
+
+/**
+ * Generates a public API report for a classpath.
+ * <p>
+ * The report only depends on the classpath and the analysis settings, so it is up-to-date and loaded from the build cache
+ * when neither changed. The analysis runs in a worker daemon, which Gradle keeps around and reuses for later reports with the same
+ * fork options. The analyzer itself is only loaded by the worker daemon, from the {@link #getAnalyzerClasspath() analyzer classpath},
+ * so that the task can be used by builds running on JVMs older than the Java 21 the analyzer needs. With the {@code wala} backend, the JDK class files read for the first report are shared with the following ones,
+ * and stay in the heap of the worker daemon until it stops; the class hierarchy of each report is freed once it has been written.
+ */
+@CacheableTask
+public abstract class PublicApiReport extends DefaultTask {
+    /**
+     * The JARs and class directories of the API to analyze.
+     */
+    @Classpath
+    public abstract ConfigurableFileCollection getClasspath();
+
+    /**
+     * Regular expressions of the packages to ignore; subpackages are also ignored.
+     */
+    @Input
+    public abstract ListProperty<String> getIgnoredPackages();
+
+    /**
+     * Fully qualified names of the types to ignore.
+     */
+    @Input
+    public abstract ListProperty<String> getIgnoredTypes();
+
+    @Input
+    public abstract Property<Boolean> getIgnoreDeprecated();
+
+    /**
+     * Types whose subtypes are lazy, in addition to {@code Provider} and {@code ConfigurableFileCollection}.
+     */
+    @Input
+    public abstract ListProperty<String> getLazyTypes();
+
+    /**
+     * Whether property methods are paired with the ones inherited from API supertypes.
+     */
+    @Input
+    public abstract Property<Boolean> getInherited();
+
+    /**
+     * The format of the report: {@code markdown}, {@code jsonl} or {@code sarif}.
+     */
+    @Input
+    public abstract Property<String> getFormat();
+
+    @Input
+    public abstract Property<String> getTitle();
+
+    /**
+     * How the classpath is read: {@code wala} or {@code fast}. Both backends produce the same report, so this is not an input.
+     */
+    @Internal
+    public abstract Property<String> getBackend();
+
+    /**
+     * The JARs of the analyzer and its dependencies, which the worker daemon runs the analysis with.
+     */
+    @Classpath
+    public abstract ConfigurableFileCollection getAnalyzerClasspath();
+
+    /**
+     * The maximum heap size of the worker daemon, e.g. {@code 2g}.
+     */
+    @Internal
+    public abstract Property<String> getMaxHeapSize();
+
+    /**
+     * The JVM to run the worker daemon with, which must be Java 21 or later; the JVM running the build is used if not set.
+     */
+    @Nested
+    @Optional
+    public abstract Property<JavaLauncher> getJavaLauncher();
+
+    @OutputFile
+    public abstract RegularFileProperty getOutputFile();
+
+    @Inject
+    protected abstract WorkerExecutor getWorkerExecutor();
+
+    @TaskAction
+    public void generate() {
+        WorkQueue workQueue = getWorkerExecutor().processIsolation(spec -> {
+            spec.getClasspath().from(getAnalyzerClasspath());
+            spec.forkOptions(forkOptions -> {
+                if (getMaxHeapSize().isPresent()) {
+                    forkOptions.setMaxHeapSize(getMaxHeapSize().get());
+                }
+                if (getJavaLauncher().isPresent()) {
+                    forkOptions.setExecutable(getJavaLauncher().get().getExecutablePath().getAsFile().getAbsolutePath());
+                }
+            });
+        });
+        workQueue.submit(PublicApiReportAction.class, parameters -> {
+            parameters.getClasspath().from(getClasspath());
+            parameters.getIgnoredPackages().set(getIgnoredPackages());
+            parameters.getIgnoredTypes().set(getIgnoredTypes());
+            parameters.getIgnoreDeprecated().set(getIgnoreDeprecated());
+            parameters.getLazyTypes().set(getLazyTypes());
+            parameters.getInherited().set(getInherited());
+            parameters.getFormat().set(getFormat());
+            parameters.getTitle().set(getTitle());
+            parameters.getBackend().set(getBackend());
+            parameters.getOutputFile().set(getOutputFile());
+        });
+    }
+}
@@ -0,0 +1,87 @@
+package org.gradle.research.plugin;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates a report in the worker daemon.
+ * <p>
+ * The analyzer requires Java 21, while this class is also loaded by builds running on older JVMs, so it only refers to the analyzer
+ * by name. It calls {@code PublicApiAnalyzer.writeReport(String...)} from the analyzer classpath of the worker with the command line
+ * arguments of the report, which keeps the JDK class files read by the {@code wala} backend for as long as the worker daemon lives.
+ */
+public abstract class PublicApiReportAction implements WorkAction<PublicApiReportAction.Parameters> {
+    private static final String ANALYZER_CLASS = "org.gradle.research.PublicApiAnalyzer";
+
+    public interface Parameters extends WorkParameters {
+        ConfigurableFileCollection getClasspath();
+
+        ListProperty<String> getIgnoredPackages();
+
+        ListProperty<String> getIgnoredTypes();
+
+        Property<Boolean> getIgnoreDeprecated();
+
+        ListProperty<String> getLazyTypes();
+
+        Property<Boolean> getInherited();
+
+        Property<String> getFormat();
+
+        Property<String> getTitle();
+
+        Property<String> getBackend();
+
+        RegularFileProperty getOutputFile();
+    }
+
+    @Override
+    public void execute() {
+        Parameters parameters = getParameters();
+        File output = parameters.getOutputFile().get().getAsFile();
+        List<String> args = new ArrayList<>();
+        for (File classpathEntry : parameters.getClasspath()) {
+            args.add("--classpath=" + classpathEntry.getAbsolutePath());
+        }
+        args.add("--output=" + output.getAbsolutePath());
+        args.add("--title=" + parameters.getTitle().get());
+        args.add("--format=" + parameters.getFormat().get());
+        args.add("--backend=" + parameters.getBackend().get());
+        // Gradle already caches the report, so the model cache of the analyzer is not used
+        for (String ignoredPackage : parameters.getIgnoredPackages().get()) {
+            args.add("--ignore-package=" + ignoredPackage);
+        }
+        for (String ignoredType : parameters.getIgnoredTypes().get()) {
+            args.add("--ignore-type=" + ignoredType);
+        }
+        for (String lazyType : parameters.getLazyTypes().get()) {
+            args.add("--lazy-type=" + lazyType);
+        }
+        if (parameters.getIgnoreDeprecated().get()) {
+            args.add("--ignore-deprecated");
+        }
+        if (parameters.getInherited().get()) {
+            args.add("--inherited");
+        }
+
+        try {
+            Class.forName(ANALYZER_CLASS)
+                .getMethod("writeReport", String[].class)
+                .invoke(null, (Object) args.toArray(new String[0]));
+        } catch (InvocationTargetException e) {
+            throw new GradleException("Could not generate public API report " + output, e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new GradleException("The analyzer classpath does not contain " + ANALYZER_CLASS, e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.gradle.research.plugin;
+
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.attributes.LibraryElements;
+import org.gradle.api.attributes.Usage;
+import org.gradle.api.attributes.java.TargetJvmVersion;
+import org.gradle.api.file.Directory;
+import org.gradle.api.plugins.JavaBasePlugin;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.provider.Provider;
+import org.gradle.jvm.toolchain.JavaLanguageVersion;
+import org.gradle.jvm.toolchain.JavaToolchainService;
+
+import java.util.Collections;
+import java.util.Locale;
+
+/**
+ * Adds a {@code publicApiReport} task, which analyzes the JAR of the project when the Java plugin is applied.
+ * <p>
+ * The analyzer is resolved from the {@code publicApiAnalyzer} configuration, which defaults to the {@code app} project of the analyzer build.
+ * With the Java plugins, the reports are generated on a Java toolchain of the version the analyzer is built for.
+ */
+public class PublicApiReportPlugin implements Plugin<Project> {
+    private static final String ANALYZER_CONFIGURATION = "publicApiAnalyzer";
+    private static final String ANALYZER_MODULE = "org.gradle.research:app";
+    private static final int ANALYZER_JAVA_VERSION = 21;
+
+    @Override
+    public void apply(Project project) {
+        Configuration analyzer = project.getConfigurations().create(ANALYZER_CONFIGURATION, configuration -> {
+            configuration.setDescription("The public API analyzer run by the publicApiReport tasks.");
+            configuration.setCanBeConsumed(false);
+            configuration.attributes(attributes -> {
+                attributes.attribute(Usage.USAGE_ATTRIBUTE, project.getObjects().named(Usage.class, Usage.JAVA_RUNTIME));
+                attributes.attribute(LibraryElements.LIBRARY_ELEMENTS_ATTRIBUTE, project.getObjects().named(LibraryElements.class, LibraryElements.JAR));
+                attributes.attribute(TargetJvmVersion.TARGET_JVM_VERSION_ATTRIBUTE, ANALYZER_JAVA_VERSION);
+            });
+            configuration.defaultDependencies(dependencies -> dependencies.add(project.getDependencies().create(ANALYZER_MODULE)));
+        });
+
+        Provider<Directory> reportsDirectory = project.getLayout().getBuildDirectory().dir("reports/public-api");
+        project.getTasks().withType(PublicApiReport.class).configureEach(task -> {
+            task.getIgnoredPackages().convention(Collections.emptyList());
+            task.getIgnoredTypes().convention(Collections.emptyList());
+            task.getIgnoreDeprecated().convention(false);
+            task.getLazyTypes().convention(Collections.emptyList());
+            task.getInherited().convention(false);
+            task.getFormat().convention("markdown");
+            task.getTitle().convention("Public API Report");
+            task.getBackend().convention("fast");
+            task.getAnalyzerClasspath().from(analyzer);
+            task.getOutputFile().convention(task.getFormat().flatMap(format ->
+                reportsDirectory.map(directory -> directory.file(task.getName() + "." + extension(format)))));
+        });
+
+        project.getPlugins().withType(JavaBasePlugin.class, javaBase -> {
+            JavaToolchainService toolchains = project.getExtensions().getByType(JavaToolchainService.class);
+            project.getTasks().withType(PublicApiReport.class).configureEach(task ->
+                task.getJavaLauncher().convention(toolchains.launcherFor(toolchain -> toolchain.getLanguageVersion().set(JavaLanguageVersion.of(ANALYZER_JAVA_VERSION)))));
+        });
+
+        project.getTasks().register("publicApiReport", PublicApiReport.class, task -> {
+            task.setGroup("verification");
+            task.setDescription("Generates a report of the problematic JavaBean properties in the public API.");
+        });
+        project.getPlugins().withType(JavaPlugin.class, java -> project.getTasks().named("publicApiReport", PublicApiReport.class, task ->
+            task.getClasspath().from(project.getTasks().named(JavaPlugin.JAR_TASK_NAME))));
+    }
+
+    private static String extension(String format) {
+        String normalized = format.toLowerCase(Locale.ROOT);
+        return normalized.equals("markdown") ? "md" : normalized;
+    }
+}
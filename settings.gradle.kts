@@ -13,3 +13,5 @@ plugins {
 
 rootProject.name = "public-java-bean-properties"
 include("app")
+include("benchmarks")
+include("gradle-plugin")